@@ -345,9 +345,35 @@ CREATE TABLE passport
     created_by    VARCHAR(255) REFERENCES personnel (person_id) ON DELETE CASCADE,
     approved_at   TIMESTAMP,
     approved_by   VARCHAR(255) REFERENCES personnel (person_id) ON DELETE CASCADE,
-    details_json  JSONB
+    details_json  JSONB,
+    details_ref    VARCHAR(255),
+    details_digest VARCHAR(64)
 );
 
+-- Create passport_build_job table
+CREATE TABLE passport_build_job
+(
+    job_id             VARCHAR(255) PRIMARY KEY,
+    study_id           VARCHAR(255) REFERENCES study (study_id) ON DELETE CASCADE,
+    deployment_id      VARCHAR(255) REFERENCES model_deployment (deployment_id) ON DELETE CASCADE,
+    created_by         VARCHAR(255) REFERENCES personnel (person_id) ON DELETE CASCADE,
+    approved_by        VARCHAR(255) REFERENCES personnel (person_id) ON DELETE CASCADE,
+    details_selection  JSONB,
+    status             VARCHAR(255),
+    total_sections     INTEGER,
+    completed_sections INTEGER,
+    current_section    VARCHAR(255),
+    passport_id        VARCHAR(255),
+    error_message      TEXT,
+    created_at         TIMESTAMP,
+    started_at         TIMESTAMP,
+    finished_at        TIMESTAMP,
+    claimed_by         VARCHAR(255),
+    heartbeat_at       TIMESTAMP
+);
+
+CREATE INDEX passport_build_job_status_created_at ON passport_build_job (status, created_at);
+
 -- Create audit_log table
 CREATE TABLE audit_log
 (
@@ -1,7 +1,10 @@
 package io.passport.server.config;
 
+import jakarta.ws.rs.client.ClientBuilder;
 import lombok.Getter;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 import org.keycloak.OAuth2Constants;
+import org.keycloak.admin.client.JacksonProvider;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.KeycloakBuilder;
 import org.keycloak.admin.client.resource.RealmResource;
@@ -10,6 +13,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Class which provides Keycloak instance and necessary resources for interacting with Keycloak server.
  */
@@ -33,18 +38,40 @@ public class KeycloakProvider {
     @Value("${keycloak.credentials.secret}")
     private String clientSecret;
 
+    /**
+     * Connection pool and timeouts of the Keycloak Admin API client
+     */
+    @Value("${keycloak-client.admin.pool-size:20}")
+    private int adminPoolSize;
+
+    @Value("${keycloak-client.admin.connect-timeout-ms:3000}")
+    private long adminConnectTimeoutMs;
+
+    @Value("${keycloak-client.admin.read-timeout-ms:5000}")
+    private long adminReadTimeoutMs;
+
     /**
      * Provides a Keycloak instance configured with client credentials.
+     * Uses a pooled HTTP client with connect and read timeouts, so calls fail fast while Keycloak is unreachable.
+     * The client registers Keycloak's Jackson provider, as the default client does, so representations with
+     * fields unknown to this admin client version are still read.
      * @return a configured Keycloak instance.
      */
     @Bean
     public Keycloak getKeycloak() {
+        ResteasyClientBuilder clientBuilder = (ResteasyClientBuilder) ClientBuilder.newBuilder();
+        clientBuilder.connectionPoolSize(adminPoolSize);
+        clientBuilder.connectTimeout(adminConnectTimeoutMs, TimeUnit.MILLISECONDS);
+        clientBuilder.readTimeout(adminReadTimeoutMs, TimeUnit.MILLISECONDS);
+        clientBuilder.register(JacksonProvider.class, 100);
+
         return KeycloakBuilder.builder()
                 .serverUrl(serverURL)
                 .realm(realm)
                 .grantType(OAuth2Constants.CLIENT_CREDENTIALS)
                 .clientId(clientID)
                 .clientSecret(clientSecret)
+                .resteasyClient(clientBuilder.build())
                 .build();
     }
 
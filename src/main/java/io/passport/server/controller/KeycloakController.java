@@ -1,6 +1,7 @@
 package io.passport.server.controller;
 
 import io.passport.server.model.Credentials;
+import io.passport.server.service.ConnectorTokenCache;
 import io.passport.server.service.KeycloakService;
 import jakarta.ws.rs.NotAuthorizedException;
 import org.keycloak.representations.AccessTokenResponse;
@@ -23,9 +24,15 @@ public class KeycloakController {
      */
     private KeycloakService keycloakService;
 
+    /**
+     * Cache of access tokens issued for connector logins
+     */
+    private ConnectorTokenCache connectorTokenCache;
+
     @Autowired
-    public KeycloakController(KeycloakService keycloakService) {
+    public KeycloakController(KeycloakService keycloakService, ConnectorTokenCache connectorTokenCache) {
         this.keycloakService = keycloakService;
+        this.connectorTokenCache = connectorTokenCache;
     }
 
     /**
@@ -65,13 +72,14 @@ public class KeycloakController {
 
     /**
      * Refresh Token redeeming request with the pre-provided refresh token.
+     * Repeat logins are served from the connector token cache until shortly before the access token expires.
      * @param refreshToken Refresh Token which acts as a connector secret
      * @return A response with the Access Token
      */
     @PostMapping("/connector/login")
     public ResponseEntity<?> loginWithSecret(@RequestBody String refreshToken) {
         try {
-            AccessTokenResponse tokens = keycloakService.refreshWithSecret(refreshToken);
+            AccessTokenResponse tokens = connectorTokenCache.getAccessToken(refreshToken, keycloakService::refreshWithSecret);
             return ResponseEntity.ok(tokens);
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Secret isn't valid.");
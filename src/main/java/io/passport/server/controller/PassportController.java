@@ -1,22 +1,35 @@
 package io.passport.server.controller;
 
 import io.passport.server.model.Passport;
+import io.passport.server.model.PassportBuildJob;
+import io.passport.server.model.PassportSummaryDTO;
 import io.passport.server.model.PassportWithDetailSelection;
+import io.passport.server.model.PdfRenderJob;
+import io.passport.server.model.PdfRenderJobStatus;
 import io.passport.server.model.PdfRequest;
 import io.passport.server.model.Role;
+import io.passport.server.service.PassportBuildJobService;
 import io.passport.server.service.PassportService;
-import io.passport.server.service.PassportSignatureService;
-import io.passport.server.service.PdfRenderService;
+import io.passport.server.service.PdfRenderQueue;
+import io.passport.server.service.PdfRenderRejectedException;
 import io.passport.server.service.RoleCheckerService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.*;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class which stores the generated HTTP requests related to passport operations.
@@ -26,18 +39,19 @@ import java.util.List;
 public class PassportController {
 
     private static final Logger log = LoggerFactory.getLogger(PassportController.class);
-    private final PdfRenderService renderer;
+    private final PdfRenderQueue pdfRenderQueue;
     private final PassportService passportService;
     private final RoleCheckerService roleCheckerService;
-    private final PassportSignatureService passportSignatureService;
+    private final PassportBuildJobService passportBuildJobService;
     private final List<Role> allowedRoles = List.of(Role.QUALITY_ASSURANCE_SPECIALIST);
 
     @Autowired
-    public PassportController(PassportService passportService, RoleCheckerService roleCheckerService, PassportSignatureService passportSignatureService, PdfRenderService renderer) {
+    public PassportController(PassportService passportService, RoleCheckerService roleCheckerService, PdfRenderQueue pdfRenderQueue,
+                              PassportBuildJobService passportBuildJobService) {
         this.passportService = passportService;
+        this.passportBuildJobService = passportBuildJobService;
         this.roleCheckerService = roleCheckerService;
-        this.passportSignatureService = passportSignatureService;
-        this.renderer = renderer;
+        this.pdfRenderQueue = pdfRenderQueue;
     }
 
     /**
@@ -61,6 +75,43 @@ public class PassportController {
         return ResponseEntity.ok().headers(headers).body(passports);
     }
 
+    /**
+     * Read a page of passport summaries by studyId. Details are not included, they are available from the passport itself.
+     * @param studyId ID of the study
+     * @param page Zero based page index
+     * @param size Page size, at most 100
+     * @param sort Sort direction of the creation time, asc or desc
+     * @param principal KeycloakPrincipal object that holds access token
+     * @return Page of Passport summaries
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<?> getPassportSummariesByStudyId(@RequestParam String studyId,
+                                                           @RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "20") int size,
+                                                           @RequestParam(defaultValue = "desc") String sort,
+                                                           @AuthenticationPrincipal Jwt principal) {
+        if (!this.roleCheckerService.isUserAuthorizedForStudy(studyId, principal, allowedRoles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        Sort.Direction direction;
+        try {
+            direction = Sort.Direction.fromString(sort);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Page must not be negative and size must be between 1 and 100.");
+        }
+
+        Page<PassportSummaryDTO> summaries = this.passportService.findPassportSummariesByStudyId(studyId, page, size, direction);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Total-Count", String.valueOf(summaries.getTotalElements()));
+
+        return ResponseEntity.ok().headers(headers).body(summaries.getContent());
+    }
+
     /**
      * Delete passport by passportId.
      * @param passportId ID of the passport that is to be deleted
@@ -88,19 +139,37 @@ public class PassportController {
     /**
      * Create a Passport.
      * @param passport The passport object with basic info (deploymentId, studyId, etc.)
-     * @param studyId ID of the study for authorization
+     * @param studyId ID of the study for authorization, the passport is created in this study
+     * @param async Whether to queue the build and return its job instead of waiting for the passport
      * @param principal KeycloakPrincipal object that holds access token
-     * @return Created Passport
+     * @return Created Passport with its details, or the queued build job in async mode
      */
     @PostMapping
     public ResponseEntity<?> createPassport(@RequestBody PassportWithDetailSelection passport,
                                             @RequestParam String studyId,
+                                            @RequestParam(defaultValue = "false") boolean async,
                                             @AuthenticationPrincipal Jwt principal) {
         try {
             if (!this.roleCheckerService.isUserAuthorizedForStudy(studyId, principal, allowedRoles)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
+            if (passport.getPassport() == null) {
+                return ResponseEntity.badRequest().body("Missing passport");
+            }
+            String bodyStudyId = passport.getPassport().getStudyId();
+            if (bodyStudyId != null && !bodyStudyId.equals(studyId)) {
+                return ResponseEntity.badRequest().body("Passport studyId does not match the studyId parameter");
+            }
+            passport.getPassport().setStudyId(studyId);
+
+            if (async) {
+                PassportBuildJob job = passportBuildJobService.submit(passport);
+                return ResponseEntity.accepted()
+                        .location(URI.create("/passport/jobs/" + job.getJobId() + "?studyId=" + job.getStudyId()))
+                        .body(job);
+            }
+
             Passport savedPassport = passportService.createPassport(passport);
             return ResponseEntity.status(HttpStatus.CREATED).body(savedPassport);
         } catch (RuntimeException e) {
@@ -110,6 +179,55 @@ public class PassportController {
         }
     }
 
+    /**
+     * Create a Passport for every model deployment of a study.
+     * @param passport Basic info shared by the passports (createdBy, etc.) and selected details of the passports
+     * @param studyId ID of the study
+     * @param principal KeycloakPrincipal object that holds access token
+     * @return Created Passports, without their details
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createPassportsForStudy(@RequestBody PassportWithDetailSelection passport,
+                                                     @RequestParam String studyId,
+                                                     @AuthenticationPrincipal Jwt principal) {
+        try {
+            if (!this.roleCheckerService.isUserAuthorizedForStudy(studyId, principal, allowedRoles)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            if (passport.getPassport() == null) {
+                passport.setPassport(new Passport());
+            }
+            passport.getPassport().setStudyId(studyId);
+            List<Passport> savedPassports = passportService.createPassportsForStudy(passport);
+            return ResponseEntity.status(HttpStatus.CREATED).body(savedPassports);
+        } catch (RuntimeException e) {
+            log.error("Error while creating passports: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error while creating passports: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieve the state of an asynchronous passport build, including its section progress.
+     * @param jobId ID of the build job
+     * @param studyId ID of the study for authorization
+     * @param principal KeycloakPrincipal object that holds access token
+     * @return Passport build job
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<PassportBuildJob> getPassportBuildJob(@PathVariable String jobId,
+                                                                @RequestParam String studyId,
+                                                                @AuthenticationPrincipal Jwt principal) {
+        if (!this.roleCheckerService.isUserAuthorizedForStudy(studyId, principal, allowedRoles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return passportBuildJobService.findJob(jobId, studyId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     /**
      * Retrieve Passport by passportId.
      * @param passportId The ID of the passport
@@ -129,8 +247,95 @@ public class PassportController {
         return ResponseEntity.ok(passport);
     }
 
+    /**
+     * Retrieve a single section of the passport details, e.g. evaluationMeasures.
+     * The section is extracted by the database and returned as stored. Passports do not change once created,
+     * so the response is cacheable without expiry.
+     * @param passportId The ID of the passport
+     * @param sectionName detailsJson key of the section
+     * @param studyId ID of the study for authorization
+     * @param principal KeycloakPrincipal object that holds access token
+     * @param request Web request used for conditional requests
+     * @return JSON of the section
+     */
+    @GetMapping(value = "/{passportId}/sections/{sectionName}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getPassportSection(@PathVariable String passportId,
+                                                     @PathVariable String sectionName,
+                                                     @RequestParam String studyId,
+                                                     @AuthenticationPrincipal Jwt principal,
+                                                     WebRequest request) {
+        if (!this.roleCheckerService.isUserAuthorizedForStudy(studyId, principal, allowedRoles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        if (!passportService.existsPassportInStudy(passportId, studyId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String eTag = sectionsETag(passportId, studyId, List.of(sectionName));
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return sectionsResponse(passportService.findPassportSection(passportId, studyId, sectionName), eTag);
+    }
+
+    /**
+     * Retrieve several sections of the passport details as one JSON object keyed by section name.
+     * Sections which the passport does not contain are left out.
+     * @param passportId The ID of the passport
+     * @param names detailsJson keys of the sections
+     * @param studyId ID of the study for authorization
+     * @param principal KeycloakPrincipal object that holds access token
+     * @param request Web request used for conditional requests
+     * @return JSON object of the sections
+     */
+    @GetMapping(value = "/{passportId}/sections", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getPassportSections(@PathVariable String passportId,
+                                                      @RequestParam List<String> names,
+                                                      @RequestParam String studyId,
+                                                      @AuthenticationPrincipal Jwt principal,
+                                                      WebRequest request) {
+        if (!this.roleCheckerService.isUserAuthorizedForStudy(studyId, principal, allowedRoles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        if (!passportService.existsPassportInStudy(passportId, studyId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String eTag = sectionsETag(passportId, studyId, names);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return sectionsResponse(passportService.findPassportSections(passportId, studyId, names), eTag);
+    }
+
+    /**
+     * Entity tag of passport sections. Passports are immutable, so their ID and study and the section names identify
+     * the content. Only evaluated after the passport is found in the study, so a tag never validates a missing passport.
+     */
+    private static String sectionsETag(String passportId, String studyId, List<String> sectionNames) {
+        String key = passportId + ":" + studyId + ":" + String.join(",", sectionNames);
+        return "\"" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Raw JSON response of passport sections with long-lived private caching.
+     */
+    private static ResponseEntity<byte[]> sectionsResponse(Optional<byte[]> sections, String eTag) {
+        return sections
+                .map(json -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable())
+                        .eTag(eTag)
+                        .body(json))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     /**
      * Combined request to generate a passport PDF from a HTML, then sign it.
+     * Responds with 429 if the render queue is full, and 503 if the render does not finish in time,
+     * both with a Retry-After header.
      *
      * @param req PDF generation request DTO
      * @param principal Keycloak JWT principal
@@ -151,29 +356,113 @@ public class PassportController {
                 return ResponseEntity.badRequest().body("Missing studyId");
             }
 
-            byte[] pdf = renderer.render(
-                    req.getHtmlContent(),
-                    req.getBaseUrl(),
-                    (req.getWidth() != null && !req.getWidth().isBlank()) ? req.getWidth() : "420mm",
-                    (req.getHeight() != null && !req.getHeight().isBlank()) ? req.getHeight() : "297mm",
-                    (req.getLandscape() != null) ? req.getLandscape() : Boolean.TRUE
-            );
+            byte[] signed = pdfRenderQueue.renderAndSign(req);
+            return pdfResponse(signed, req.getFileName());
+
+        } catch (PdfRenderRejectedException e) {
+            return rejectedResponse(e);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to generate and sign PDF: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Queue the generation and signing of a passport PDF, to be polled and downloaded later.
+     * Responds with 429 and a Retry-After header if the render queue is full.
+     *
+     * @param req PDF generation request DTO
+     * @param principal Keycloak JWT principal
+     * @return The queued render job
+     */
+    @PostMapping(value = "/pdf-jobs", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> submitPdfJob(@RequestBody PdfRequest req,
+                                          @AuthenticationPrincipal Jwt principal) {
+        if (!this.roleCheckerService.isUserAuthorizedForStudy(req.getStudyId(), principal, allowedRoles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        if (req.getHtmlContent() == null || req.getHtmlContent().isBlank()) {
+            return ResponseEntity.badRequest().body("Missing htmlContent");
+        }
+        if (req.getStudyId() == null || req.getStudyId().isBlank()) {
+            return ResponseEntity.badRequest().body("Missing studyId");
+        }
 
-            byte[] signed = passportSignatureService.generateSignature(pdf);
+        try {
+            PdfRenderJob job = pdfRenderQueue.submit(req);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/passport/pdf-jobs/" + job.getJobId() + "?studyId=" + job.getStudyId()))
+                    .body(job);
+        } catch (PdfRenderRejectedException e) {
+            return rejectedResponse(e);
+        }
+    }
 
-            String outName = req.getFileName();
+    /**
+     * Retrieve the state of a passport PDF render job.
+     * @param jobId ID of the render job
+     * @param studyId ID of the study for authorization
+     * @param principal Keycloak JWT principal
+     * @return PDF render job
+     */
+    @GetMapping("/pdf-jobs/{jobId}")
+    public ResponseEntity<PdfRenderJob> getPdfJob(@PathVariable String jobId,
+                                                  @RequestParam String studyId,
+                                                  @AuthenticationPrincipal Jwt principal) {
+        if (!this.roleCheckerService.isUserAuthorizedForStudy(studyId, principal, allowedRoles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDisposition(ContentDisposition.attachment().filename(outName).build());
-            headers.add("Access-Control-Expose-Headers", "Content-Disposition");
-            headers.setContentLength(signed.length);
+        return pdfRenderQueue.findJob(jobId, studyId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
-            return new ResponseEntity<>(signed, headers, HttpStatus.OK);
+    /**
+     * Download the signed PDF of a completed render job.
+     * @param jobId ID of the render job
+     * @param studyId ID of the study for authorization
+     * @param principal Keycloak JWT principal
+     * @return Signed PDF in bytes, or 409 with the job if it is not completed
+     */
+    @GetMapping("/pdf-jobs/{jobId}/pdf")
+    public ResponseEntity<?> downloadPdfJob(@PathVariable String jobId,
+                                            @RequestParam String studyId,
+                                            @AuthenticationPrincipal Jwt principal) {
+        if (!this.roleCheckerService.isUserAuthorizedForStudy(studyId, principal, allowedRoles)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
 
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Failed to generate and sign PDF: " + e.getMessage());
+        Optional<PdfRenderJob> job = pdfRenderQueue.findJob(jobId, studyId);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.get().getStatus() != PdfRenderJobStatus.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(job.get());
         }
+        return pdfResponse(job.get().getSignedPdf(), job.get().getFileName());
+    }
+
+    /**
+     * Signed PDF response as an attachment
+     */
+    private static ResponseEntity<byte[]> pdfResponse(byte[] signed, String fileName) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDisposition(ContentDisposition.attachment().filename(fileName).build());
+        headers.add("Access-Control-Expose-Headers", "Content-Disposition");
+        headers.setContentLength(signed.length);
+
+        return new ResponseEntity<>(signed, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Busy render queue response, telling the client when to retry
+     */
+    private static ResponseEntity<String> rejectedResponse(PdfRenderRejectedException e) {
+        return ResponseEntity.status(e.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
     }
 }
@@ -1,6 +1,7 @@
 package io.passport.server.controller;
 
 import io.passport.server.model.Personnel;
+import io.passport.server.model.PersonnelBulkResultDTO;
 import io.passport.server.model.PersonnelDTO;
 import io.passport.server.model.Role;
 import io.passport.server.service.PersonnelService;
@@ -123,6 +124,33 @@ public class PersonnelController {
         }
     }
 
+    /**
+     * Create a list of Personnel at once.
+     * @param personnelDTOs Personnel model instances to be created.
+     * @param principal KeycloakPrincipal object that holds access token
+     * @return Per-item creation results, with 207 status if some of the items failed
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createPersonnelBulk(@RequestBody List<PersonnelDTO> personnelDTOs,
+                                                 @AuthenticationPrincipal Jwt principal) {
+        try{
+
+            // Allowed roles for this endpoint
+            List<Role> lesserAllowedRoles = List.of(Role.ORGANIZATION_ADMIN);
+            // Check role of the user
+            if(!this.roleCheckerService.hasAnyRole(principal, lesserAllowedRoles)){
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+
+            List<PersonnelBulkResultDTO> results = this.personnelService.savePersonnelBulk(personnelDTOs);
+            boolean allCreated = results.stream().allMatch(PersonnelBulkResultDTO::isCreated);
+            return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+        }catch(Exception e){
+            log.error(e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
     /**
      * Update Personnel.
      * @param personId ID of the personnel that is to be updated.
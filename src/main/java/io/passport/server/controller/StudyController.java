@@ -59,8 +59,7 @@ public class StudyController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Study");
         }
 
-        String userId = principal.getSubject();
-        if (!keycloakService.isUserInStudyGroupWithRoles(studyId, userId, List.of("STUDY_OWNER"))) {
+        if (!this.roleCheckerService.isUserAuthorizedForStudy(studyId, principal, List.of(Role.STUDY_OWNER))) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Study");
         }
 
@@ -180,7 +179,7 @@ public class StudyController {
         }
         String userId = principal.getSubject();
 
-        if (!keycloakService.isUserInStudyGroupWithRoles(studyId, userId, List.of("STUDY_OWNER"))) {
+        if (!this.roleCheckerService.isUserAuthorizedForStudy(studyId, principal, List.of(Role.STUDY_OWNER))) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -217,9 +216,8 @@ public class StudyController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        String userId = principal.getSubject();
         // String username = principal.getClaim("preferred_username");
-        if (!keycloakService.isUserInStudyGroupWithRoles(studyId, userId, List.of("STUDY_OWNER"))) {
+        if (!this.roleCheckerService.isUserAuthorizedForStudy(studyId, principal, List.of(Role.STUDY_OWNER))) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
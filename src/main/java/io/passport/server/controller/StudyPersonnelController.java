@@ -118,9 +118,14 @@ public class StudyPersonnelController {
                             PersonnelRoleDTO::getRoles
                     ));
 
-            this.studyPersonnelService.createStudyPersonnelEntries(studyId, organizationId, personnelRoleMap);
+            Map<String, String> failedPersonnel =
+                    this.studyPersonnelService.createStudyPersonnelEntries(studyId, organizationId, personnelRoleMap);
 
             List<Personnel> updatedPersonnel = this.studyPersonnelService.findPersonnelByStudyIdAndOrganizationId(studyId, organizationId);
+            if (!failedPersonnel.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.MULTI_STATUS)
+                        .body(new StudyPersonnelSyncResultDTO(updatedPersonnel, failedPersonnel));
+            }
             return ResponseEntity.ok(updatedPersonnel);
         } catch (Exception e) {
             log.error(e.getMessage());
@@ -0,0 +1,16 @@
+package io.passport.server.model;
+
+/**
+ * Source of the role and study membership information used in authorization checks
+ */
+public enum AuthorizationMode {
+    /**
+     * Roles and study memberships are resolved through the Keycloak Admin API.
+     */
+    ADMIN_API,
+    /**
+     * Roles and study memberships are read from the validated access token claims.
+     * Falls back to the Keycloak Admin API for tokens that lack the claims.
+     */
+    TOKEN_CLAIMS
+}
@@ -1,6 +1,7 @@
 package io.passport.server.model;
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import lombok.Getter;
 import lombok.Setter;
@@ -46,9 +47,17 @@ public class Passport {
     @Column(name = "approved_by")
     private String approvedBy;
 
-    // TODO: Bad practice. Reflect on the method of storing passport details data. Think about storing it using the file system and providing a reference.
-    @Column(name = "details_json", columnDefinition = "jsonb")
+    // Inline details, null in the column when the details are kept in the passport document store.
+    // Passport details never change once created.
+    @Column(name = "details_json", columnDefinition = "jsonb", updatable = false)
     @Convert(converter = JsonConverter.class)
     @ColumnTransformer(write = "?::jsonb")
     private Map<String, Object> detailsJson;
+
+    @JsonIgnore
+    @Column(name = "details_ref", updatable = false)
+    private String detailsRef;
+
+    @Column(name = "details_digest", updatable = false)
+    private String detailsDigest;
 }
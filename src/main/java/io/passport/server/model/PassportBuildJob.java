@@ -0,0 +1,85 @@
+package io.passport.server.model;
+
+import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnTransformer;
+import org.hibernate.annotations.GenericGenerator;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Asynchronous passport build job. The job holds everything needed to build the passport,
+ * so queued jobs survive a restart of the server. Running jobs record the instance building them and
+ * its last heartbeat, so only jobs of instances which stopped are queued again.
+ */
+@Entity
+@Table(name = "passport_build_job")
+@Getter
+@Setter
+@JsonIdentityInfo(
+        generator = ObjectIdGenerators.PropertyGenerator.class,
+        property = "jobId")
+public class PassportBuildJob {
+    @Id
+    @GeneratedValue(generator = "uuid")
+    @GenericGenerator(name = "uuid", strategy = "uuid2")
+    private String jobId;
+
+    @Column(name = "study_id")
+    private String studyId;
+
+    @Column(name = "deployment_id")
+    private String deploymentId;
+
+    @Column(name = "created_by")
+    private String createdBy;
+
+    @Column(name = "approved_by")
+    private String approvedBy;
+
+    @Column(name = "details_selection", columnDefinition = "jsonb")
+    @Convert(converter = JsonConverter.class)
+    @ColumnTransformer(write = "?::jsonb")
+    private Map<String, Object> detailsSelection;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private PassportBuildJobStatus status;
+
+    @Column(name = "total_sections")
+    private int totalSections;
+
+    @Column(name = "completed_sections")
+    private int completedSections;
+
+    @Column(name = "current_section")
+    private String currentSection;
+
+    @Column(name = "passport_id")
+    private String passportId;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @JsonIgnore
+    @Column(name = "claimed_by")
+    private String claimedBy;
+
+    @JsonIgnore
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+}
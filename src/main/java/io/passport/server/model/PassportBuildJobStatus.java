@@ -0,0 +1,8 @@
+package io.passport.server.model;
+
+/**
+ * Lifecycle states of an asynchronous passport build job
+ */
+public enum PassportBuildJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
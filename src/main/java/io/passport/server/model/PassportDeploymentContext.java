@@ -0,0 +1,15 @@
+package io.passport.server.model;
+
+/**
+ * Deployment chain of a passport, loaded once and shared by the deployment scoped passport sections.
+ *
+ * @param deployment Model deployment of the passport
+ * @param model Deployed model, null if it does not exist
+ * @param owner Owner organization of the model, null if it does not exist
+ * @param environment Deployment environment, null if it does not exist
+ */
+public record PassportDeploymentContext(ModelDeployment deployment,
+                                        Model model,
+                                        Organization owner,
+                                        DeploymentEnvironment environment) {
+}
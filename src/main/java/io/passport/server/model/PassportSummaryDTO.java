@@ -0,0 +1,32 @@
+package io.passport.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Summary of a Passport for listings, without its details.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PassportSummaryDTO {
+
+    private String passportId;
+
+    private String studyId;
+
+    private String deploymentId;
+
+    private Instant createdAt;
+
+    private String createdBy;
+
+    private Instant approvedAt;
+
+    private String approvedBy;
+}
@@ -0,0 +1,28 @@
+package io.passport.server.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Asynchronous passport PDF render job. Jobs and their signed PDFs are kept in memory for a limited time.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class PdfRenderJob {
+    private String jobId;
+    private String studyId;
+    private String fileName;
+    private volatile PdfRenderJobStatus status;
+    private Instant createdAt;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String errorMessage;
+
+    @JsonIgnore
+    private volatile byte[] signedPdf;
+}
@@ -0,0 +1,8 @@
+package io.passport.server.model;
+
+/**
+ * Lifecycle states of an asynchronous passport PDF render job
+ */
+public enum PdfRenderJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
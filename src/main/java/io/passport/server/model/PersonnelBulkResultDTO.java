@@ -0,0 +1,27 @@
+package io.passport.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Per-item result of a bulk personnel creation.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PersonnelBulkResultDTO {
+
+    private String username;
+
+    /**
+     * Created personnel, null if the creation failed
+     */
+    private Personnel personnel;
+
+    private boolean created;
+
+    private String error;
+}
@@ -0,0 +1,26 @@
+package io.passport.server.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StudyPersonnel assignment result with the personnel whose Keycloak group synchronization failed.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StudyPersonnelSyncResultDTO {
+
+    private List<Personnel> personnel;
+
+    /**
+     * Error messages of the failed synchronizations, keyed by personnel ID
+     */
+    private Map<String, String> failedPersonnel;
+}
@@ -7,7 +7,9 @@ import lombok.Getter;
  */
 @Getter
 public enum TokenClaim {
-    USERNAME("preferred_username");
+    USERNAME("preferred_username"),
+    REALM_ACCESS("realm_access"),
+    ROLES("roles");
 
     private String value;
 
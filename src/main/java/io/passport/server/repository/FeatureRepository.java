@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +16,7 @@ import java.util.Optional;
 @Repository
 public interface FeatureRepository extends JpaRepository<Feature, String> {
     List<Feature> findByFeaturesetId(String featuresetId);
+    List<Feature> findByFeaturesetIdIn(Collection<String> featuresetIds);
 
     // Find Features modified by a specific Personnel
     @Query("SELECT f FROM Feature f WHERE f.createdBy = :personnelId OR f.lastUpdatedBy = :personnelId")
@@ -4,6 +4,7 @@ import io.passport.server.model.LearningDataset;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -13,5 +14,6 @@ import java.util.List;
 public interface LearningDatasetRepository extends JpaRepository<LearningDataset, String> {
     List<LearningDataset> findByDataTransformationId(String dataTransformationId);
     List<LearningDataset> findByDatasetId(String datasetId);
+    List<LearningDataset> findByDatasetIdIn(Collection<String> datasetIds);
     List<LearningDataset> findAllByStudyId(String studyId);
 }
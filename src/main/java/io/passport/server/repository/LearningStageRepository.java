@@ -4,6 +4,7 @@ import io.passport.server.model.LearningStage;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -12,4 +13,5 @@ import java.util.List;
 @Repository
 public interface LearningStageRepository extends JpaRepository<LearningStage, String> {
     List<LearningStage> findByLearningProcessId(String learningProcessId);
+    List<LearningStage> findByLearningProcessIdIn(Collection<String> learningProcessIds);
 }
@@ -1,6 +1,7 @@
 package io.passport.server.repository;
 
 import io.passport.server.model.ModelDeployment;
+import io.passport.server.model.PassportDeploymentContext;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -29,4 +30,20 @@ public interface ModelDeploymentRepository extends JpaRepository<ModelDeployment
     @Query("SELECT new ModelDeployment(md.deploymentId, md.modelId, md.environmentId, md.tags, md.identifiedFailures, md.status, md.createdAt, md.createdBy, md.lastUpdatedAt, md.lastUpdatedBy)  " +
             "FROM Model m, ModelDeployment md WHERE md.modelId = m.modelId AND m.studyId = :studyId")
     List<ModelDeployment> findAllByStudyId(@Param("studyId")String studyId);
+
+    // Load the deployment with its model, model owner organization and environment in a single query
+    @Query("SELECT new io.passport.server.model.PassportDeploymentContext(md, m, o, env) FROM ModelDeployment md " +
+            "LEFT JOIN Model m ON md.modelId = m.modelId " +
+            "LEFT JOIN Organization o ON m.owner = o.organizationId " +
+            "LEFT JOIN DeploymentEnvironment env ON md.environmentId = env.environmentId " +
+            "WHERE md.deploymentId = :deploymentId")
+    Optional<PassportDeploymentContext> findDeploymentContextByDeploymentId(@Param("deploymentId") String deploymentId);
+
+    // Load every deployment of a study with its model, model owner organization and environment in a single query
+    @Query("SELECT new io.passport.server.model.PassportDeploymentContext(md, m, o, env) FROM ModelDeployment md " +
+            "JOIN Model m ON md.modelId = m.modelId " +
+            "LEFT JOIN Organization o ON m.owner = o.organizationId " +
+            "LEFT JOIN DeploymentEnvironment env ON md.environmentId = env.environmentId " +
+            "WHERE m.studyId = :studyId ORDER BY md.createdAt")
+    List<PassportDeploymentContext> findDeploymentContextsByStudyId(@Param("studyId") String studyId);
 }
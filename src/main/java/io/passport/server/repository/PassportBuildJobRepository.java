@@ -0,0 +1,41 @@
+package io.passport.server.repository;
+
+import io.passport.server.model.PassportBuildJob;
+import io.passport.server.model.PassportBuildJobStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.transaction.Transactional;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * PassportBuildJob repository for database management.
+ */
+@Repository
+public interface PassportBuildJobRepository extends JpaRepository<PassportBuildJob, String> {
+
+    // Lock the oldest job in the given status, skipping jobs already claimed by other workers
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    Optional<PassportBuildJob> findFirstByStatusOrderByCreatedAtAsc(PassportBuildJobStatus status);
+
+    Optional<PassportBuildJob> findByJobIdAndStudyId(String jobId, String studyId);
+
+    // Move jobs whose owner stopped sending heartbeats from one status to another, e.g. running jobs back to the queue
+    @Modifying
+    @Transactional
+    @Query("UPDATE PassportBuildJob j SET j.status = :to, j.startedAt = null, j.claimedBy = null, j.heartbeatAt = null " +
+            "WHERE j.status = :from AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+    int resetStaleStatus(@Param("from") PassportBuildJobStatus from, @Param("to") PassportBuildJobStatus to,
+                         @Param("staleBefore") Instant staleBefore);
+
+    // Refresh the heartbeat of the jobs an instance holds in the given status
+    @Modifying
+    @Transactional
+    @Query("UPDATE PassportBuildJob j SET j.heartbeatAt = :now WHERE j.status = :status AND j.claimedBy = :owner")
+    int heartbeat(@Param("status") PassportBuildJobStatus status, @Param("owner") String owner, @Param("now") Instant now);
+}
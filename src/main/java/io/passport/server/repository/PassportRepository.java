@@ -1,6 +1,9 @@
 package io.passport.server.repository;
 
 import io.passport.server.model.Passport;
+import io.passport.server.model.PassportSummaryDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,13 +16,25 @@ import java.util.Optional;
  * Passport repository for database management.
  */
 @Repository
-public interface PassportRepository extends JpaRepository<Passport, String> {
+public interface PassportRepository extends JpaRepository<Passport, String>, PassportRepositoryCustom {
     List<Passport> findAllByStudyId(String studyId);
     List<Passport> findByDeploymentId(String deploymentId);
+    boolean existsByPassportIdAndStudyId(String passportId, String studyId);
+
+    // Page through passport summaries of a study without loading the details
+    @Query(value = "SELECT new io.passport.server.model.PassportSummaryDTO(p.passportId, p.studyId, p.deploymentId, " +
+            "p.createdAt, p.createdBy, p.approvedAt, p.approvedBy) FROM Passport p WHERE p.studyId = :studyId",
+            countQuery = "SELECT COUNT(p) FROM Passport p WHERE p.studyId = :studyId")
+    Page<PassportSummaryDTO> findSummariesByStudyId(@Param("studyId") String studyId, Pageable pageable);
+
     // Find Passports modified by a specific Personnel
     @Query("SELECT p FROM Passport p WHERE p.createdBy = :personnelId OR p.approvedBy = :personnelId")
     List<Passport> findByCreatedByOrApprovedBy(@Param("personnelId") String personnelId);
 
+    // Find the document store reference of a passport, empty if the passport keeps its details inline
+    @Query("SELECT p.detailsRef FROM Passport p WHERE p.passportId = :passportId AND p.studyId = :studyId AND p.detailsRef IS NOT NULL")
+    Optional<String> findDetailsRefByPassportIdAndStudyId(@Param("passportId") String passportId, @Param("studyId") String studyId);
+
     // Find Study ID directly from Passport ID
     @Query("SELECT p.studyId FROM Passport p WHERE p.passportId = :passportId")
     Optional<String> findStudyIdByPassportId(@Param("passportId") String passportId);
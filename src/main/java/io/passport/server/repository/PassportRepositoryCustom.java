@@ -0,0 +1,54 @@
+package io.passport.server.repository;
+
+import io.passport.server.model.Passport;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Passport repository operations which bypass the entity mapping of the passport details.
+ */
+public interface PassportRepositoryCustom {
+
+    /**
+     * Passport together with its serialized details.
+     * @param passport Passport with its ID and basic info set
+     * @param detailsJson UTF-8 encoded details document, null if the details are kept in the document store
+     */
+    record PassportWithDetailsJson(Passport passport, byte[] detailsJson) {}
+
+    /**
+     * Inserts a passport row, binding the serialized details straight to the jsonb column.
+     * @param passport Passport with its ID and basic info set, details are ignored
+     * @param detailsJson UTF-8 encoded details document, null if the details are kept in the document store
+     * @param length Length of the details document in bytes
+     */
+    void insertWithDetails(Passport passport, InputStream detailsJson, int length);
+
+    /**
+     * Inserts several passport rows with batched statements, binding the serialized details straight to the jsonb column.
+     * @param passports Passports with their serialized details
+     */
+    void insertAllWithDetails(List<PassportWithDetailsJson> passports);
+
+    /**
+     * Extracts a single section of the passport details inside the database.
+     * @param passportId ID of the passport
+     * @param studyId ID of the study the passport belongs to
+     * @param sectionName detailsJson key of the section
+     * @return UTF-8 encoded JSON of the section, empty if the passport, its inline details or the section does not exist
+     */
+    Optional<byte[]> findDetailsSection(String passportId, String studyId, String sectionName);
+
+    /**
+     * Extracts several sections of the passport details inside the database, as one JSON object.
+     * Sections missing from the passport are left out of the object.
+     * @param passportId ID of the passport
+     * @param studyId ID of the study the passport belongs to
+     * @param sectionNames detailsJson keys of the sections
+     * @return UTF-8 encoded JSON object of the sections, empty if the passport or its inline details do not exist
+     */
+    Optional<byte[]> findDetailsSections(String passportId, String studyId, Collection<String> sectionNames);
+}
@@ -0,0 +1,110 @@
+package io.passport.server.repository;
+
+import io.passport.server.model.Passport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.InputStream;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC implementation of the custom passport repository operations.
+ */
+public class PassportRepositoryCustomImpl implements PassportRepositoryCustom {
+
+    private static final String INSERT_WITH_DETAILS =
+            "INSERT INTO passport (passport_id, study_id, deployment_id, created_at, created_by, approved_at, approved_by, " +
+            "details_ref, details_digest, details_json) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, convert_from(?, 'UTF8')::jsonb)";
+
+    private static final String SELECT_SECTION =
+            "SELECT convert_to((details_json -> ?)::text, 'UTF8') FROM passport WHERE passport_id = ? AND study_id = ?";
+
+    private static final String SELECT_SECTIONS =
+            "SELECT CASE WHEN p.details_json IS NULL THEN NULL ELSE " +
+            "convert_to(COALESCE((SELECT jsonb_object_agg(e.key, e.value) FROM jsonb_each(p.details_json) e " +
+            "WHERE e.key = ANY(?)), '{}'::jsonb)::text, 'UTF8') END FROM passport p WHERE p.passport_id = ? AND p.study_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    @Autowired
+    public PassportRepositoryCustomImpl(JdbcTemplate jdbcTemplate,
+                                        @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void insertWithDetails(Passport passport, InputStream detailsJson, int length) {
+        jdbcTemplate.update(INSERT_WITH_DETAILS, ps -> {
+            setPassport(ps, passport);
+            if (detailsJson == null) {
+                ps.setNull(10, Types.BINARY);
+            } else {
+                // Streamed as bytea and decoded by the database, so no String copy of the document is made
+                ps.setBinaryStream(10, detailsJson, length);
+            }
+        });
+    }
+
+    @Override
+    public void insertAllWithDetails(List<PassportWithDetailsJson> passports) {
+        jdbcTemplate.batchUpdate(INSERT_WITH_DETAILS, passports, batchSize, (ps, entry) -> {
+            setPassport(ps, entry.passport());
+            ps.setBytes(10, entry.detailsJson());
+        });
+    }
+
+    @Override
+    public Optional<byte[]> findDetailsSection(String passportId, String studyId, String sectionName) {
+        List<byte[]> rows = jdbcTemplate.query(SELECT_SECTION, (rs, rowNum) -> rs.getBytes(1),
+                sectionName, passportId, studyId);
+        return rows.stream().filter(bytes -> bytes != null).findFirst();
+    }
+
+    @Override
+    public Optional<byte[]> findDetailsSections(String passportId, String studyId, Collection<String> sectionNames) {
+        List<byte[]> rows = jdbcTemplate.query(SELECT_SECTIONS, ps -> {
+            Array names = ps.getConnection().createArrayOf("text", sectionNames.toArray());
+            ps.setArray(1, names);
+            ps.setString(2, passportId);
+            ps.setString(3, studyId);
+        }, (rs, rowNum) -> rs.getBytes(1));
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Binds the basic info columns of the insert.
+     */
+    private static void setPassport(PreparedStatement ps, Passport passport) throws SQLException {
+        ps.setString(1, passport.getPassportId());
+        ps.setString(2, passport.getStudyId());
+        ps.setString(3, passport.getDeploymentId());
+        setInstant(ps, 4, passport.getCreatedAt());
+        ps.setString(5, passport.getCreatedBy());
+        setInstant(ps, 6, passport.getApprovedAt());
+        ps.setString(7, passport.getApprovedBy());
+        ps.setString(8, passport.getDetailsRef());
+        ps.setString(9, passport.getDetailsDigest());
+    }
+
+    /**
+     * Binds an instant the same way Hibernate does, as a UTC timestamp.
+     */
+    private static void setInstant(PreparedStatement ps, int index, Instant instant) throws SQLException {
+        if (instant == null) {
+            ps.setNull(index, Types.TIMESTAMP_WITH_TIMEZONE);
+        } else {
+            ps.setObject(index, instant.atOffset(ZoneOffset.UTC));
+        }
+    }
+}
@@ -10,7 +10,7 @@ import java.util.List;
  * Personnel repository for database management.
  */
 @Repository
-public interface PersonnelRepository extends JpaRepository<Personnel, String> {
+public interface PersonnelRepository extends JpaRepository<Personnel, String>, PersonnelRepositoryCustom {
 
     List<Personnel> findByOrganizationId(String organizationId);
 }
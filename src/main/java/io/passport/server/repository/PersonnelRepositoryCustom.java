@@ -0,0 +1,18 @@
+package io.passport.server.repository;
+
+import io.passport.server.model.Personnel;
+
+import java.util.List;
+
+/**
+ * Personnel repository operations which bypass the entity lifecycle.
+ */
+public interface PersonnelRepositoryCustom {
+
+    /**
+     * Inserts new personnel rows with batched statements.
+     * Personnel IDs are assigned by Keycloak, so saving them as entities would merge, selecting every row before its insert.
+     * @param personnelList Personnel with their IDs set, none of them stored yet
+     */
+    void insertAll(List<Personnel> personnelList);
+}
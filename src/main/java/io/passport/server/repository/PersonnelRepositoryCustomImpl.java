@@ -0,0 +1,38 @@
+package io.passport.server.repository;
+
+import io.passport.server.model.Personnel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * JDBC implementation of the custom personnel repository operations.
+ */
+public class PersonnelRepositoryCustomImpl implements PersonnelRepositoryCustom {
+
+    private static final String INSERT =
+            "INSERT INTO personnel (person_id, organization_id, first_name, last_name, email) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    @Autowired
+    public PersonnelRepositoryCustomImpl(JdbcTemplate jdbcTemplate,
+                                         @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void insertAll(List<Personnel> personnelList) {
+        jdbcTemplate.batchUpdate(INSERT, personnelList, batchSize, (ps, personnel) -> {
+            ps.setString(1, personnel.getPersonId());
+            ps.setString(2, personnel.getOrganizationId());
+            ps.setString(3, personnel.getFirstName());
+            ps.setString(4, personnel.getLastName());
+            ps.setString(5, personnel.getEmail());
+        });
+    }
+}
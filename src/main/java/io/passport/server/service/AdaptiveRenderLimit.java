@@ -0,0 +1,192 @@
+package io.passport.server.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit of PDF renders which adapts to observed render time and memory pressure.
+ * The limit grows by one after a full window of renders finishing within the target time while memory is available,
+ * and shrinks by a quarter when a render exceeds the target time or available memory drops below the threshold.
+ * It always stays between the configured minimum and maximum.
+ * Available memory counts reclaimable page cache as available: inside a memory limited cgroup it is the limit minus
+ * the usage without inactive file cache, otherwise MemAvailable of /proc/meminfo. Where neither can be read,
+ * memory pressure is not taken into account.
+ */
+class AdaptiveRenderLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetRenderNanos;
+    private final double minFreeMemoryRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private int limit;
+    private int inFlight;
+    private int withinTargetRenders;
+    private long lastDecreaseNanos;
+
+    /**
+     * @param minLimit Lowest limit, kept even under memory pressure
+     * @param maxLimit Highest limit
+     * @param targetRenderMs Render time up to which the limit may grow
+     * @param minFreeMemoryRatio Ratio of available to total memory below which the limit shrinks, 0 disables the check
+     */
+    AdaptiveRenderLimit(int minLimit, int maxLimit, long targetRenderMs, double minFreeMemoryRatio) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.targetRenderNanos = TimeUnit.MILLISECONDS.toNanos(targetRenderMs);
+        this.minFreeMemoryRatio = minFreeMemoryRatio;
+        this.limit = this.minLimit;
+        this.lastDecreaseNanos = System.nanoTime();
+    }
+
+    /**
+     * Waits until a render may start
+     */
+    void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= limit) {
+                slotFreed.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends a render and adjusts the limit to its render time and the current memory pressure
+     * @param renderNanos Time the render took
+     */
+    void release(long renderNanos) {
+        boolean memoryPressure = isUnderMemoryPressure();
+        lock.lock();
+        try {
+            inFlight--;
+            long now = System.nanoTime();
+            if (memoryPressure || renderNanos > targetRenderNanos) {
+                withinTargetRenders = 0;
+                // Shrink at most once per target time, renders started under the old limit finish late as well
+                if (limit > minLimit && now - lastDecreaseNanos >= targetRenderNanos) {
+                    limit = Math.max(minLimit, limit - Math.max(1, limit / 4));
+                    lastDecreaseNanos = now;
+                }
+            } else if (limit < maxLimit && ++withinTargetRenders >= limit) {
+                limit++;
+                withinTargetRenders = 0;
+            }
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Current limit
+     */
+    int limit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Count of renders currently running
+     */
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether available memory of the container, or of the host when not limited, is below the threshold
+     */
+    private boolean isUnderMemoryPressure() {
+        if (minFreeMemoryRatio <= 0) return false;
+        double availableRatio = cgroupAvailableRatio().orElseGet(AdaptiveRenderLimit::hostAvailableRatio);
+        return availableRatio >= 0 && availableRatio < minFreeMemoryRatio;
+    }
+
+    /**
+     * Ratio of available memory within the cgroup memory limit, empty if the process is not memory limited
+     */
+    private static Optional<Double> cgroupAvailableRatio() {
+        // cgroup v2
+        OptionalLong limit = readLong(Path.of("/sys/fs/cgroup/memory.max"));
+        if (limit.isPresent()) {
+            OptionalLong usage = readLong(Path.of("/sys/fs/cgroup/memory.current"));
+            OptionalLong inactiveFile = readStat(Path.of("/sys/fs/cgroup/memory.stat"), "inactive_file");
+            return availableRatio(limit.getAsLong(), usage, inactiveFile);
+        }
+        // cgroup v1, an unlimited cgroup reports a limit beyond the physical memory
+        limit = readLong(Path.of("/sys/fs/cgroup/memory/memory.limit_in_bytes"));
+        OptionalLong hostTotal = readStat(Path.of("/proc/meminfo"), "MemTotal:");
+        if (limit.isPresent() && (hostTotal.isEmpty() || limit.getAsLong() < hostTotal.getAsLong() * 1024)) {
+            OptionalLong usage = readLong(Path.of("/sys/fs/cgroup/memory/memory.usage_in_bytes"));
+            OptionalLong inactiveFile = readStat(Path.of("/sys/fs/cgroup/memory/memory.stat"), "total_inactive_file");
+            return availableRatio(limit.getAsLong(), usage, inactiveFile);
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<Double> availableRatio(long limit, OptionalLong usage, OptionalLong inactiveFile) {
+        if (limit <= 0 || usage.isEmpty()) return Optional.empty();
+        long workingSet = usage.getAsLong() - inactiveFile.orElse(0);
+        return Optional.of((double) (limit - workingSet) / limit);
+    }
+
+    /**
+     * Ratio of MemAvailable to MemTotal of the host, -1 if unknown
+     */
+    private static double hostAvailableRatio() {
+        OptionalLong total = readStat(Path.of("/proc/meminfo"), "MemTotal:");
+        OptionalLong available = readStat(Path.of("/proc/meminfo"), "MemAvailable:");
+        if (total.isEmpty() || available.isEmpty() || total.getAsLong() <= 0) return -1;
+        return (double) available.getAsLong() / total.getAsLong();
+    }
+
+    /**
+     * Numeric content of a single value file, empty if it is missing or not a number (such as "max")
+     */
+    private static OptionalLong readLong(Path file) {
+        try {
+            return OptionalLong.of(Long.parseLong(Files.readString(file).trim()));
+        } catch (IOException | NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * Value of a "key value [unit]" line of a stat file
+     */
+    private static OptionalLong readStat(Path file, String key) {
+        try {
+            List<String> lines = Files.readAllLines(file);
+            for (String line : lines) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length >= 2 && fields[0].equals(key)) {
+                    return OptionalLong.of(Long.parseLong(fields[1]));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not available on this system
+        }
+        return OptionalLong.empty();
+    }
+}
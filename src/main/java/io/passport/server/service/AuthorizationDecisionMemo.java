@@ -0,0 +1,46 @@
+package io.passport.server.service;
+
+import io.passport.server.model.Role;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Request scoped memo of study authorization decisions.
+ * Answers each distinct (study, user, role set) question at most once per HTTP request,
+ * e.g. across the whole cascade validation chain of a deletion request.
+ */
+@Component
+@RequestScope
+public class AuthorizationDecisionMemo {
+
+    /**
+     * Memo key of a study authorization question.
+     * @param studyId ID of the study
+     * @param personnelId ID of the personnel (user)
+     * @param roles Set of roles allowed for the action
+     */
+    private record DecisionKey(String studyId, String personnelId, Set<Role> roles) {}
+
+    private final Map<DecisionKey, Boolean> decisions = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the memoized decision, or computes and memoizes it on the first call.
+     * Failed decisions are not memoized.
+     * @param studyId ID of the study
+     * @param personnelId ID of the personnel (user)
+     * @param allowedRoles List of roles allowed for the action
+     * @param decision Supplier which computes the decision
+     * @return true if the user is authorized, false otherwise
+     */
+    public boolean computeIfAbsent(String studyId, String personnelId, List<Role> allowedRoles, Supplier<Boolean> decision) {
+        Set<Role> roles = allowedRoles.isEmpty() ? EnumSet.noneOf(Role.class) : EnumSet.copyOf(allowedRoles);
+        return decisions.computeIfAbsent(new DecisionKey(studyId, personnelId, roles), key -> decision.get());
+    }
+}
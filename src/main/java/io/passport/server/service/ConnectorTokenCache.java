@@ -0,0 +1,113 @@
+package io.passport.server.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.keycloak.representations.AccessTokenResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache of the access tokens issued for connector logins, keyed by a hash of the connector refresh token.
+ * Entries are valid until shortly before the access token expires. Concurrent logins of the same connector
+ * wait for a single refresh instead of each triggering their own.
+ */
+@Component
+public class ConnectorTokenCache {
+
+    /**
+     * Access token response together with its expiry instant.
+     * @param response Token response issued by Keycloak
+     * @param expiresAt Instant the access token expires at
+     */
+    private record CachedToken(AccessTokenResponse response, Instant expiresAt) {}
+
+    private final Cache<String, CachedToken> cache;
+    private final long expirySkewSeconds;
+
+    @Autowired
+    public ConnectorTokenCache(MeterRegistry meterRegistry,
+                               @Value("${keycloak-client.connector-token-cache.expiry-skew-seconds:30}") long expirySkewSeconds,
+                               @Value("${keycloak-client.connector-token-cache.max-size:1000}") long maxSize) {
+        this.expirySkewSeconds = expirySkewSeconds;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedToken token, long currentTime) {
+                        long validSeconds = Duration.between(Instant.now(), token.expiresAt()).getSeconds() - ConnectorTokenCache.this.expirySkewSeconds;
+                        return TimeUnit.SECONDS.toNanos(Math.max(0, validSeconds));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "connectorTokens");
+    }
+
+    /**
+     * Returns the cached access token of the connector, refreshing it through Keycloak on a miss.
+     * The returned response carries the remaining lifetime of the access token.
+     * @param refreshToken Offline refresh token of the connector
+     * @param refresher Function which redeems the refresh token on Keycloak
+     * @return Access Token response with an Access Token
+     */
+    public AccessTokenResponse getAccessToken(String refreshToken, Function<String, AccessTokenResponse> refresher) {
+        CachedToken cached = cache.get(hash(refreshToken), key -> {
+            AccessTokenResponse response = refresher.apply(refreshToken);
+            return new CachedToken(response, Instant.now().plusSeconds(response.getExpiresIn()));
+        });
+        return withRemainingLifetime(cached);
+    }
+
+    /**
+     * Copies the token response with expires_in set to the remaining lifetime of the access token.
+     */
+    private static AccessTokenResponse withRemainingLifetime(CachedToken cached) {
+        AccessTokenResponse source = cached.response();
+        AccessTokenResponse copy = new AccessTokenResponse();
+        copy.setToken(source.getToken());
+        copy.setTokenType(source.getTokenType());
+        copy.setExpiresIn(Math.max(0, Duration.between(Instant.now(), cached.expiresAt()).getSeconds()));
+        copy.setRefreshToken(source.getRefreshToken());
+        copy.setRefreshExpiresIn(source.getRefreshExpiresIn());
+        copy.setIdToken(source.getIdToken());
+        copy.setNotBeforePolicy(source.getNotBeforePolicy());
+        copy.setSessionState(source.getSessionState());
+        copy.setScope(source.getScope());
+        return copy;
+    }
+
+    /**
+     * SHA-256 hash of the refresh token, so raw secrets are never kept as cache keys.
+     */
+    private static String hash(String refreshToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(refreshToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -108,6 +109,18 @@ public class FeatureService {
         return featureRepository.findByFeaturesetId(featuresetId);
     }
 
+    /**
+     * Find Features of several FeatureSets in a single query
+     * @param featuresetIds IDs of the FeatureSets
+     * @return
+     */
+    public List<Feature> findByFeaturesetIds(Collection<String> featuresetIds) {
+        if (featuresetIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return featureRepository.findByFeaturesetIdIn(featuresetIds);
+    }
+
     /**
      * Find a Feature by featureId
      * @param featureId ID of the Feature
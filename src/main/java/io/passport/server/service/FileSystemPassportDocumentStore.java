@@ -0,0 +1,91 @@
+package io.passport.server.service;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content addressed passport document store on the local file system.
+ * Documents are Zstandard compressed and named after the SHA-256 digest of their content,
+ * so identical documents are kept once. Unreferenced documents are not removed by the server.
+ */
+@Component
+@ConditionalOnProperty(name = "passport.document-store.type", havingValue = "filesystem")
+public class FileSystemPassportDocumentStore implements PassportDocumentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSystemPassportDocumentStore.class);
+
+    private static final String EXTENSION = ".json.zst";
+    private static final Pattern REFERENCE = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}\\.json\\.zst");
+
+    private final Path root;
+    private final Path tempDirectory;
+    private final int compressionLevel;
+
+    @Autowired
+    public FileSystemPassportDocumentStore(@Value("${passport.document-store.filesystem.root:./data/passport-documents}") String root,
+                                           @Value("${passport.document-store.filesystem.compression-level:3}") int compressionLevel) throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.tempDirectory = Files.createDirectories(this.root.resolve("tmp"));
+        this.compressionLevel = compressionLevel;
+        log.info("Passport documents are stored in {}", this.root);
+    }
+
+    @Override
+    public StoredDocument store(InputStream document) throws IOException {
+        MessageDigest messageDigest = sha256();
+        Path tempFile = Files.createTempFile(tempDirectory, "document-", EXTENSION);
+        try {
+            try (InputStream in = new DigestInputStream(document, messageDigest);
+                 OutputStream out = new ZstdOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)), compressionLevel)) {
+                in.transferTo(out);
+            }
+
+            String digest = HexFormat.of().formatHex(messageDigest.digest());
+            String reference = digest.substring(0, 2) + "/" + digest.substring(2, 4) + "/" + digest + EXTENSION;
+            Path target = root.resolve(reference);
+            if (Files.exists(target)) {
+                return new StoredDocument(reference, digest);
+            }
+
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Stored concurrently with the same content
+            }
+            return new StoredDocument(reference, digest);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public InputStream open(String reference) throws IOException {
+        if (!REFERENCE.matcher(reference).matches()) {
+            throw new IllegalArgumentException("Invalid passport document reference: " + reference);
+        }
+        return new ZstdInputStream(new BufferedInputStream(Files.newInputStream(root.resolve(reference))));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package io.passport.server.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Resilience layer for Keycloak Admin API calls on the request path.
+ * Calls run behind a bulkhead and a circuit breaker. While Keycloak is unavailable, the last known result
+ * of a call is served for a configurable grace window. Every fallback is counted in metrics.
+ */
+@Component
+public class KeycloakResilience {
+
+    private static final Logger log = LoggerFactory.getLogger(KeycloakResilience.class);
+
+    /**
+     * Key of a last known result.
+     * @param operation Name of the guarded operation
+     * @param key Key of the call within the operation
+     */
+    private record StaleKey(String operation, Object key) {}
+
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Cache<StaleKey, Object> lastKnownResults;
+
+    @Autowired
+    public KeycloakResilience(MeterRegistry meterRegistry,
+                              @Value("${keycloak-client.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                              @Value("${keycloak-client.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+                              @Value("${keycloak-client.circuit-breaker.wait-duration-open-seconds:30}") long waitDurationOpenSeconds,
+                              @Value("${keycloak-client.bulkhead.max-concurrent-calls:20}") int maxConcurrentCalls,
+                              @Value("${keycloak-client.bulkhead.max-wait-ms:500}") long maxWaitMs,
+                              @Value("${keycloak-client.stale-decision.grace-seconds:300}") long graceSeconds,
+                              @Value("${keycloak-client.stale-decision.max-size:10000}") long staleMaxSize) {
+        this.meterRegistry = meterRegistry;
+
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(Math.max(1, slidingWindowSize / 2))
+                .waitDurationInOpenState(Duration.ofSeconds(waitDurationOpenSeconds))
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .recordException(KeycloakResilience::isKeycloakFailure)
+                .build());
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("keycloak");
+        this.circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> log.warn("Keycloak circuit breaker: {}", event.getStateTransition()));
+
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ofMillis(maxWaitMs))
+                .build());
+        this.bulkhead = bulkheadRegistry.bulkhead("keycloak");
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+
+        this.lastKnownResults = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(graceSeconds))
+                .maximumSize(staleMaxSize)
+                .build();
+    }
+
+    /**
+     * Executes a Keycloak call behind the bulkhead and the circuit breaker.
+     * The result is remembered, and served instead while Keycloak is unavailable within the grace window.
+     * @param operation Name of the guarded operation, used as the metric tag
+     * @param key Key of the call within the operation
+     * @param call Keycloak call
+     * @return Fresh result of the call, or its last known result while Keycloak is unavailable
+     * @throws ResponseStatusException with 503 status if Keycloak is unavailable and no last known result exists
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T executeWithStaleFallback(String operation, Object key, Supplier<T> call) {
+        StaleKey staleKey = new StaleKey(operation, key);
+        try {
+            T result = Bulkhead.decorateSupplier(bulkhead, CircuitBreaker.decorateSupplier(circuitBreaker, call)).get();
+            lastKnownResults.put(staleKey, result);
+            return result;
+        } catch (RuntimeException e) {
+            if (!isUnavailable(e)) {
+                throw e;
+            }
+            Object lastKnown = lastKnownResults.getIfPresent(staleKey);
+            if (lastKnown != null) {
+                countFallback(operation, "stale");
+                log.warn("Keycloak unavailable, serving last known result of {}: {}", operation, e.getMessage());
+                return (T) lastKnown;
+            }
+            countFallback(operation, "rejected");
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Keycloak is unavailable.", e);
+        }
+    }
+
+    /**
+     * Counts a fallback of a guarded operation.
+     */
+    private void countFallback(String operation, String outcome) {
+        meterRegistry.counter("keycloak.fallbacks", "operation", operation, "outcome", outcome).increment();
+    }
+
+    /**
+     * Whether the error means Keycloak could not be reached or did not answer in time.
+     */
+    private static boolean isUnavailable(Throwable t) {
+        return t instanceof CallNotPermittedException
+                || t instanceof BulkheadFullException
+                || isKeycloakFailure(t);
+    }
+
+    /**
+     * Whether the error is a Keycloak side failure that counts against the circuit breaker.
+     * Client errors such as missing groups or users are regular answers.
+     */
+    private static boolean isKeycloakFailure(Throwable t) {
+        if (t instanceof ProcessingException) {
+            return true;
+        }
+        return t instanceof WebApplicationException wae && wae.getResponse() != null
+                && wae.getResponse().getStatus() >= 500;
+    }
+}
@@ -1,18 +1,14 @@
 package io.passport.server.service;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.passport.server.config.KeycloakProvider;
 import io.passport.server.model.Role;
+import jakarta.annotation.PreDestroy;
+import jakarta.ws.rs.NotAuthorizedException;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.core.Response;
 import lombok.Getter;
 import org.apache.http.NameValuePair;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.util.EntityUtils;
 import org.keycloak.OAuth2Constants;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.resource.*;
@@ -24,12 +20,20 @@ import org.keycloak.representations.idm.CredentialRepresentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -40,8 +44,11 @@ import java.util.stream.Collectors;
 public class KeycloakService {
 
     private static final String OFFLINE_ROLE_NAME = "offline_access";
+    private static final String STUDY_GROUP_PREFIX = "study-";
+    private static final int GROUP_MEMBER_PAGE_SIZE = 100;
+    private static final int USER_GROUP_PAGE_SIZE = 100;
+    private static final int GROUP_PAGE_SIZE = 100;
 
-    private final ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
     private static final Logger log = LoggerFactory.getLogger(KeycloakService.class);
 
     private final KeycloakProvider keycloakProvider;
@@ -49,14 +56,66 @@ public class KeycloakService {
     private final String realm;
     private final Keycloak keycloak;
 
+    /**
+     * Cache of study role memberships used in authorization checks
+     */
+    private final StudyMembershipCache studyMembershipCache;
+
+    /**
+     * Pooled client of the Keycloak token endpoint
+     */
+    private final KeycloakTokenClient keycloakTokenClient;
+
+    /**
+     * Circuit breaker, bulkhead and stale result fallback for request path Keycloak calls
+     */
+    private final KeycloakResilience keycloakResilience;
+
+    /**
+     * Index of study group IDs by lower-cased group name.
+     * Entries are evicted when Keycloak no longer knows the indexed group, see retryOnStaleStudyGroup.
+     */
+    private final Map<String, String> studyGroupIdIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Index of role subgroup IDs (role name to subgroup ID) by study group ID
+     */
+    private final Map<String, Map<String, String>> studyRoleSubgroupIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Realm role representations of the passport roles and the offline role, by role name
+     */
+    private final Map<String, RoleRepresentation> realmRoleCache = new ConcurrentHashMap<>();
+
+    /**
+     * Bounded executor for the join/leave calls of study group synchronizations
+     */
+    private final ExecutorService groupSyncExecutor;
+
     @Autowired
-    public KeycloakService(KeycloakProvider keycloakProvider) {
+    public KeycloakService(KeycloakProvider keycloakProvider,
+                           StudyMembershipCache studyMembershipCache,
+                           KeycloakTokenClient keycloakTokenClient,
+                           KeycloakResilience keycloakResilience,
+                           @Value("${authorization.group-sync.parallelism:8}") int groupSyncParallelism) {
         this.keycloakProvider = keycloakProvider;
+        this.studyMembershipCache = studyMembershipCache;
+        this.keycloakTokenClient = keycloakTokenClient;
+        this.keycloakResilience = keycloakResilience;
+        this.groupSyncExecutor = Executors.newFixedThreadPool(Math.max(1, groupSyncParallelism));
         this.keycloak = keycloakProvider.getKeycloak();
         this.realm = keycloakProvider.getRealm();
         this.usersResource = keycloak.realm(realm).users();
     }
 
+    /**
+     * Stop the group synchronization workers at exit
+     */
+    @PreDestroy
+    void shutdown() {
+        groupSyncExecutor.shutdown();
+    }
+
     /**
      * Login with user credentials and acquire an access token.
      * @param username user Keycloak recorded username
@@ -64,10 +123,23 @@ public class KeycloakService {
      * @return AccessTokenResponse
      */
     public AccessTokenResponse getAccessToken(String username, String password) {
-        Keycloak keycloakWithCredentials = this.keycloakProvider.newKeycloakBuilderWithPasswordCredentials(username, password);
-        AccessTokenResponse tokenResponse = keycloakWithCredentials.tokenManager().grantToken();
-        keycloakWithCredentials.close(); // Close the instance used for token
-        return tokenResponse;
+        if (username == null || password == null) {
+            throw new IllegalStateException("Username and password are required.");
+        }
+
+        List<NameValuePair> body = List.of(
+                new BasicNameValuePair(OAuth2Constants.GRANT_TYPE,  OAuth2Constants.PASSWORD),
+                new BasicNameValuePair(OAuth2Constants.CLIENT_ID,   keycloakProvider.getClientID()),
+                new BasicNameValuePair("client_secret",             keycloakProvider.getClientSecret()),
+                new BasicNameValuePair("username",                  username),
+                new BasicNameValuePair("password",                  password)
+        );
+
+        AccessTokenResponse atr = keycloakTokenClient.requestToken("login", body);
+        if (atr.getToken() == null || atr.getToken().isBlank()) {
+            throw new RuntimeException("Keycloak did not return an access_token: " + atr.getErrorDescription());
+        }
+        return atr;
     }
 
     /**
@@ -78,9 +150,6 @@ public class KeycloakService {
      */
     public String createOfflineSecret(String username, String password) {
 
-        String tokenUrl = String.format("%s/realms/%s/protocol/openid-connect/token",
-                keycloakProvider.getServerURL(), keycloakProvider.getRealm());
-
         List<NameValuePair> body = List.of(
                 new BasicNameValuePair("grant_type",    "password"),
                 new BasicNameValuePair("client_id",     keycloakProvider.getClientID()),
@@ -90,21 +159,7 @@ public class KeycloakService {
                 new BasicNameValuePair("scope",         "offline_access")
         );
 
-        try (CloseableHttpClient http = HttpClients.createDefault()) {
-
-            HttpPost post = new HttpPost(tokenUrl);
-            post.setEntity(new UrlEncodedFormEntity(body));
-
-            try (var response = http.execute(post)) {
-                String json = EntityUtils.toString(response.getEntity());
-                AccessTokenResponse atr = objectMapper.readValue(json, AccessTokenResponse.class);
-
-                return atr.getRefreshToken();
-            }
-
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to obtain offline token", e);
-        }
+        return keycloakTokenClient.requestToken("offline-secret", body).getRefreshToken();
     }
 
 
@@ -115,9 +170,6 @@ public class KeycloakService {
      */
     public AccessTokenResponse refreshWithSecret(String offlineRefreshToken) {
 
-        String tokenUrl = String.format("%s/realms/%s/protocol/openid-connect/token",
-                keycloakProvider.getServerURL(), realm);
-
         List<NameValuePair> body = List.of(
                 new BasicNameValuePair(OAuth2Constants.GRANT_TYPE,  OAuth2Constants.REFRESH_TOKEN),
                 new BasicNameValuePair(OAuth2Constants.REFRESH_TOKEN, offlineRefreshToken),
@@ -125,21 +177,17 @@ public class KeycloakService {
                 new BasicNameValuePair("client_secret",             keycloakProvider.getClientSecret())
         );
 
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            HttpPost post = new HttpPost(tokenUrl);
-            post.setEntity(new UrlEncodedFormEntity(body));
-
-            String json = EntityUtils.toString(client.execute(post).getEntity());
-            AccessTokenResponse atr = objectMapper.readValue(json, AccessTokenResponse.class);
-
-            if (atr.getToken() == null || atr.getToken().isBlank()) {
-                throw new IllegalStateException("Keycloak did not return an access_token - refresh token may be expired or revoked.");
-            }
-            return atr;
+        AccessTokenResponse atr;
+        try {
+            atr = keycloakTokenClient.requestToken("connector-login", body);
+        } catch (NotAuthorizedException e) {
+            throw new IllegalStateException("Keycloak rejected the refresh token.", e);
+        }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Could not refresh token", e);
+        if (atr.getToken() == null || atr.getToken().isBlank()) {
+            throw new IllegalStateException("Keycloak did not return an access_token - refresh token may be expired or revoked.");
         }
+        return atr;
     }
 
 
@@ -186,28 +234,66 @@ public class KeycloakService {
      * @return true if the role is successfully updated, false otherwise.
      */
     public boolean updateRole(String userId, Role newRole) {
-        UserResource user = usersResource.get(userId);
+        RoleMappingResource roleMappings = usersResource.get(userId).roles();
 
-        RoleRepresentation offlineRole = keycloak.realm(realm).roles().get(OFFLINE_ROLE_NAME).toRepresentation();
+        Set<String> desired = new HashSet<>();
+        desired.add(OFFLINE_ROLE_NAME);
+        if (newRole != null) {
+            desired.add(newRole.name());
+        }
+
+        List<RoleRepresentation> current = roleMappings.realmLevel().listAll();
+        Set<String> currentNames = current.stream()
+                .map(RoleRepresentation::getName)
+                .collect(Collectors.toSet());
 
-        List<RoleRepresentation> current = user.roles().realmLevel().listAll();
         List<RoleRepresentation> toRemove = current.stream()
-                .filter(r -> !r.getName().equals(OFFLINE_ROLE_NAME))
+                .filter(r -> !desired.contains(r.getName()))
                 .collect(Collectors.toList());
         if (!toRemove.isEmpty()) {
-            user.roles().realmLevel().remove(toRemove);
+            roleMappings.realmLevel().remove(toRemove);
         }
 
-        if (current.stream().noneMatch(r -> r.getName().equals(OFFLINE_ROLE_NAME))) {
-            user.roles().realmLevel().add(Collections.singletonList(offlineRole));
+        List<RoleRepresentation> toAdd = desired.stream()
+                .filter(name -> !currentNames.contains(name))
+                .map(this::getRealmRole)
+                .collect(Collectors.toList());
+        if (!toAdd.isEmpty()) {
+            roleMappings.realmLevel().add(toAdd);
         }
+        return true;
+    }
 
-        if (newRole != null) {
-            RoleRepresentation domainRole =
-                    keycloak.realm(realm).roles().get(newRole.name()).toRepresentation();
-            user.roles().realmLevel().add(Collections.singletonList(domainRole));
+    /**
+     * Get a realm role representation from the role cache, fetching it from Keycloak on a miss.
+     * @param roleName the name of the realm role
+     * @return the role representation
+     */
+    private RoleRepresentation getRealmRole(String roleName) {
+        RoleRepresentation role = realmRoleCache.get(roleName);
+        if (role == null) {
+            role = keycloak.realm(realm).roles().get(roleName).toRepresentation();
+            realmRoleCache.put(roleName, role);
+        }
+        return role;
+    }
+
+    /**
+     * Warms the realm role cache with the passport roles and the offline role once the application is ready.
+     * Failures are only logged, since roles are fetched from Keycloak on cache misses.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmRealmRoleCache() {
+        try {
+            Set<String> roleNames = Arrays.stream(Role.values()).map(Role::name).collect(Collectors.toSet());
+            roleNames.add(OFFLINE_ROLE_NAME);
+            keycloak.realm(realm).roles().list().stream()
+                    .filter(role -> roleNames.contains(role.getName()))
+                    .forEach(role -> realmRoleCache.put(role.getName(), role));
+            log.info("Realm role cache warmed with {} roles", realmRoleCache.size());
+        } catch (Exception e) {
+            log.warn("Could not warm realm role cache: {}", e.getMessage());
         }
-        return true;
     }
 
 
@@ -258,10 +344,22 @@ public class KeycloakService {
                 "ML_ENGINEER"
         );
 
+        response.close();
+
+        Map<String, String> subgroupIds = new HashMap<>();
         for (String subgroupName : subgroupNames) {
             GroupRepresentation subgroup = new GroupRepresentation();
             subgroup.setName(subgroupName);
-            keycloak.realm(realm).groups().group(groupId).subGroup(subgroup);
+            Response subgroupResponse = keycloak.realm(realm).groups().group(groupId).subGroup(subgroup);
+            if (subgroupResponse.getLocation() != null) {
+                subgroupIds.put(subgroupName, subgroupResponse.getLocation().getPath().replaceAll(".*/([^/]+)$", "$1"));
+            }
+            subgroupResponse.close();
+        }
+
+        studyGroupIdIndex.put(groupName.toLowerCase(Locale.ROOT), groupId);
+        if (subgroupIds.size() == subgroupNames.size()) {
+            studyRoleSubgroupIndex.put(groupId, Map.copyOf(subgroupIds));
         }
         assignPersonnelToStudyGroups(studyId, ownerId, List.of("STUDY_OWNER"));
     }
@@ -276,65 +374,234 @@ public class KeycloakService {
      * @param roles the list of roles to assign
      */
     public void assignPersonnelToStudyGroups(String studyId, String personnelId, List<String> roles) {
+        retryOnStaleStudyGroup(STUDY_GROUP_PREFIX + studyId, () -> {
+            applyStudyGroupAssignment(studyId, personnelId, roles);
+            return null;
+        });
+    }
+
+    private void applyStudyGroupAssignment(String studyId, String personnelId, List<String> roles) {
         // Retrieve all subgroups of the study
-        GroupRepresentation studyGroup = getGroupByName("study-" + studyId);
-        List<GroupRepresentation> subgroups = keycloak.realm(realm).groups().group(studyGroup.getId()).getSubGroups(0, 100, true);
-        List<GroupRepresentation> subgroups2 = subgroups.stream().filter(subgroup -> !subgroup.getName().equals("STUDY_OWNER")).collect(Collectors.toList());
-        for (GroupRepresentation subgroup : subgroups2) {
-            keycloak.realm(realm).users().get(personnelId).leaveGroup(subgroup.getId());
+        String studyGroupId = findGroupIdByName(STUDY_GROUP_PREFIX + studyId);
+        if (studyGroupId == null) {
+            throw new RuntimeException("Study group 'study-" + studyId + "' not found.");
         }
+        Map<String, String> subgroupIds = getRoleSubgroupIds(studyGroupId);
+        subgroupIds.forEach((subgroupName, subgroupId) -> {
+            if (!subgroupName.equals("STUDY_OWNER")) {
+                keycloak.realm(realm).users().get(personnelId).leaveGroup(subgroupId);
+            }
+        });
 
         for (String role : roles) {
-            GroupRepresentation subgroup = subgroups.stream()
-                    .filter(g -> g.getName().equals(role))
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException("Subgroup for role " + role + " not found."));
-            keycloak.realm(realm).users().get(personnelId).joinGroup(subgroup.getId());
+            String subgroupId = subgroupIds.get(role);
+            if (subgroupId == null) {
+                throw new RuntimeException("Subgroup for role " + role + " not found.");
+            }
+            keycloak.realm(realm).users().get(personnelId).joinGroup(subgroupId);
+        }
+        studyMembershipCache.invalidate(studyId, personnelId);
+    }
+
+    /**
+     * Warms the study group index with all study groups of the realm once the application is ready.
+     * Top-level groups are read page by page, since a single request is capped at 100 groups.
+     * Failures are only logged, since lookups fall back to Keycloak on index misses.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmStudyGroupIndex() {
+        try {
+            GroupsResource groupsResource = keycloak.realm(realm).groups();
+            int first = 0;
+            List<GroupRepresentation> page;
+            do {
+                page = groupsResource.groups(first, GROUP_PAGE_SIZE);
+                page.stream()
+                        .filter(group -> group.getName().toLowerCase(Locale.ROOT).startsWith(STUDY_GROUP_PREFIX))
+                        .forEach(group -> studyGroupIdIndex.put(group.getName().toLowerCase(Locale.ROOT), group.getId()));
+                first += GROUP_PAGE_SIZE;
+            } while (page.size() == GROUP_PAGE_SIZE);
+            log.info("Study group index warmed with {} groups", studyGroupIdIndex.size());
+        } catch (Exception e) {
+            log.warn("Could not warm study group index: {}", e.getMessage());
         }
     }
+
     /**
-     * Get the group by its name.
+     * Get group ID by group name.
+     * Served from the study group index, falling back to Keycloak's group search on a miss.
      * @param groupName the name of the group
-     * @return the GroupRepresentation of the group
+     * @return the ID of the group or null if not found
      */
-    private GroupRepresentation getGroupByName(String groupName) {
-        GroupsResource groups = keycloak.realm(realm).groups();
+    public String findGroupIdByName(String groupName) {
+        String indexKey = groupName.toLowerCase(Locale.ROOT);
+        String groupId = studyGroupIdIndex.get(indexKey);
+        if (groupId != null) {
+            return groupId;
+        }
 
-        return groups.groups().stream()
+        groupId = keycloak.realm(realm).groups().groups(groupName, 0, 100).stream()
                 .filter(group -> group.getName().equalsIgnoreCase(groupName))
+                .map(GroupRepresentation::getId)
                 .findFirst()
                 .orElse(null);
+        if (groupId != null) {
+            studyGroupIdIndex.put(indexKey, groupId);
+        }
+        return groupId;
     }
 
     /**
-     * Get group ID by group name.
-     * @param groupName the name of the group
-     * @return the ID of the group or null if not found
+     * Get the role subgroup IDs of a study group.
+     * Served from the subgroup index, fetched from Keycloak on a miss.
+     * @param studyGroupId the ID of the study group
+     * @return map of role name to subgroup ID
      */
-    public String findGroupIdByName(String groupName) {
-        List<GroupRepresentation> groups = keycloak.realm(realm).groups().groups();
+    private Map<String, String> getRoleSubgroupIds(String studyGroupId) {
+        Map<String, String> subgroupIds = studyRoleSubgroupIndex.get(studyGroupId);
+        if (subgroupIds != null) {
+            return subgroupIds;
+        }
+
+        subgroupIds = keycloak.realm(realm).groups().group(studyGroupId).getSubGroups(0, 100, true).stream()
+                .collect(Collectors.toUnmodifiableMap(GroupRepresentation::getName, GroupRepresentation::getId));
+        studyRoleSubgroupIndex.put(studyGroupId, subgroupIds);
+        return subgroupIds;
+    }
 
-        for (GroupRepresentation group : groups) {
-            if (group.getName().equalsIgnoreCase(groupName)) {
-                return group.getId();
+    /**
+     * Runs an operation on a study group through the index, retrying it once if an indexed ID is stale.
+     * A 404 of Keycloak means the group or its subgroups were removed or recreated outside of this service,
+     * so the index entries of the group are evicted and the operation resolves the group again on its retry.
+     * @param groupName the name of the study group
+     * @param operation operation resolving the group through the index
+     * @return the result of the operation
+     */
+    private <T> T retryOnStaleStudyGroup(String groupName, Supplier<T> operation) {
+        try {
+            return operation.get();
+        } catch (NotFoundException e) {
+            log.info("Indexed IDs of study group '{}' are stale, resolving the group again", groupName);
+            evictStudyGroupIndex(groupName);
+            return operation.get();
+        }
+    }
+
+    /**
+     * Removes a study group and its subgroups from the index.
+     * @param groupName the name of the study group
+     */
+    private void evictStudyGroupIndex(String groupName) {
+        String groupId = studyGroupIdIndex.remove(groupName.toLowerCase(Locale.ROOT));
+        if (groupId != null) {
+            studyRoleSubgroupIndex.remove(groupId);
+        }
+    }
+
+    /**
+     * Synchronizes the study subgroup memberships of several personnel at once.
+     * The current memberships are read once per role subgroup, and only the joins and leaves needed to reach
+     * the desired roles are issued, with bounded parallelism across personnel.
+     * As in assignPersonnelToStudyGroups, STUDY_OWNER memberships are never left.
+     *
+     * @param studyId the ID of the study
+     * @param personnelRoleMap map of personnel (user) IDs to the roles they should hold in the study
+     * @return map of personnel IDs to the error message of their failed synchronization, empty if all succeeded
+     */
+    public Map<String, String> syncStudyGroupMemberships(String studyId, Map<String, List<String>> personnelRoleMap) {
+        return retryOnStaleStudyGroup(STUDY_GROUP_PREFIX + studyId,
+                () -> applyStudyGroupMemberships(studyId, personnelRoleMap));
+    }
+
+    private Map<String, String> applyStudyGroupMemberships(String studyId, Map<String, List<String>> personnelRoleMap) {
+        String studyGroupId = findGroupIdByName(STUDY_GROUP_PREFIX + studyId);
+        if (studyGroupId == null) {
+            throw new RuntimeException("Study group 'study-" + studyId + "' not found.");
+        }
+        Map<String, String> subgroupIds = getRoleSubgroupIds(studyGroupId);
+
+        // Current memberships of the personnel, collected from the member lists of the role subgroups
+        Map<String, Set<String>> currentRoles = new HashMap<>();
+        subgroupIds.forEach((role, subgroupId) -> {
+            for (String memberId : listGroupMemberIds(subgroupId)) {
+                if (personnelRoleMap.containsKey(memberId)) {
+                    currentRoles.computeIfAbsent(memberId, id -> new HashSet<>()).add(role);
+                }
             }
+        });
+
+        Map<String, CompletableFuture<Void>> tasks = new LinkedHashMap<>();
+        personnelRoleMap.forEach((personnelId, roles) -> {
+            Set<String> current = currentRoles.getOrDefault(personnelId, Set.of());
+            Set<String> desired = new HashSet<>(roles);
+            List<String> toLeave = current.stream()
+                    .filter(role -> !desired.contains(role) && !role.equals("STUDY_OWNER"))
+                    .collect(Collectors.toList());
+            List<String> toJoin = desired.stream()
+                    .filter(role -> !current.contains(role))
+                    .collect(Collectors.toList());
+            if (toLeave.isEmpty() && toJoin.isEmpty()) {
+                return;
+            }
+            tasks.put(personnelId, CompletableFuture.runAsync(
+                    () -> applyStudyGroupChanges(studyId, personnelId, subgroupIds, toLeave, toJoin), groupSyncExecutor));
+        });
+
+        Map<String, String> failures = new LinkedHashMap<>();
+        tasks.forEach((personnelId, task) -> {
+            try {
+                task.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("Study group sync failed for personnel {} in study {}: {}", personnelId, studyId, cause.getMessage());
+                failures.put(personnelId, cause.getMessage());
+            }
+        });
+        return failures;
+    }
+
+    /**
+     * Applies the membership changes of a single personnel in a study.
+     * @param studyId the ID of the study
+     * @param personnelId the ID of the personnel (user)
+     * @param subgroupIds map of role name to subgroup ID of the study
+     * @param toLeave roles whose subgroups are to be left
+     * @param toJoin roles whose subgroups are to be joined
+     */
+    private void applyStudyGroupChanges(String studyId, String personnelId, Map<String, String> subgroupIds,
+                                        List<String> toLeave, List<String> toJoin) {
+        try {
+            UserResource user = usersResource.get(personnelId);
+            for (String role : toLeave) {
+                user.leaveGroup(subgroupIds.get(role));
+            }
+            for (String role : toJoin) {
+                String subgroupId = subgroupIds.get(role);
+                if (subgroupId == null) {
+                    throw new RuntimeException("Subgroup for role " + role + " not found.");
+                }
+                user.joinGroup(subgroupId);
+            }
+        } finally {
+            studyMembershipCache.invalidate(studyId, personnelId);
         }
-        return null;
     }
 
     /**
-     * Finds a subgroup within a parent group (study) by name.
-     * @param studyName the name of the parent study group.
-     * @param roleName  the name of the subgroup.
-     * @return the group representation of the subgroup.
+     * Lists the IDs of all direct members of a group, page by page.
+     * @param groupId the ID of the group
+     * @return the member user IDs
      */
-    private GroupRepresentation findSubgroupByName(String studyName, String roleName) {
-        return keycloak.realm(realm).groups().group(findGroupIdByName(studyName))
-                .toRepresentation()
-                .getSubGroups().stream()
-                .filter(g -> g.getName().equals(roleName))
-                .findFirst()
-                .orElse(null);
+    private List<String> listGroupMemberIds(String groupId) {
+        List<String> memberIds = new ArrayList<>();
+        int first = 0;
+        List<UserRepresentation> page;
+        do {
+            page = keycloak.realm(realm).groups().group(groupId).members(first, GROUP_MEMBER_PAGE_SIZE);
+            page.forEach(member -> memberIds.add(member.getId()));
+            first += GROUP_MEMBER_PAGE_SIZE;
+        } while (page.size() == GROUP_MEMBER_PAGE_SIZE);
+        return memberIds;
     }
 
     /**
@@ -344,13 +611,23 @@ public class KeycloakService {
      * @param roles       the roles to remove.
      */
     public void removePersonnelFromStudyGroups(String studyName, String personnelId, List<String> roles) {
+        retryOnStaleStudyGroup(studyName, () -> {
+            leaveStudyGroups(studyName, personnelId, roles);
+            return null;
+        });
+    }
+
+    private void leaveStudyGroups(String studyName, String personnelId, List<String> roles) {
         RealmResource realmResource = keycloak.realm(realm);
+        String studyGroupId = findGroupIdByName(studyName);
+        Map<String, String> subgroupIds = studyGroupId != null ? getRoleSubgroupIds(studyGroupId) : Map.of();
         for (String role : roles) {
-            GroupRepresentation roleGroup = findSubgroupByName(studyName, role);
-            if (roleGroup != null) {
-                realmResource.users().get(personnelId).leaveGroup(roleGroup.getId());
+            String roleGroupId = subgroupIds.get(role);
+            if (roleGroupId != null) {
+                realmResource.users().get(personnelId).leaveGroup(roleGroupId);
             }
         }
+        studyMembershipCache.invalidate(studyName.substring(STUDY_GROUP_PREFIX.length()), personnelId);
     }
 
     /**
@@ -360,7 +637,7 @@ public class KeycloakService {
      * @return true if the user beStrings to the study owner group, false otherwise.
      */
     public boolean isUserInStudyOwnerGroup(String studyId, String userId) {
-        List<GroupRepresentation> groups = usersResource.get(userId).groups();
+        List<GroupRepresentation> groups = listUserGroups(userId);
         String expectedGroupName = "study-" + studyId + "-STUDY_OWNER";  // Assuming groups are named with this convention
 
         return groups.stream().anyMatch(group -> group.getName().equals(expectedGroupName));
@@ -376,37 +653,54 @@ public class KeycloakService {
      * @return true if the user is a member of at least one of the subgroups, false otherwise
      */
     public boolean isUserInStudyGroupWithRoles(String studyId, String personnelId, List<String> roles) {
-        // Retrieve the main study group
-        GroupRepresentation studyGroup = getGroupByName("study-" + studyId);
+        Set<String> studyRoles = studyMembershipCache.getStudyRoles(studyId, personnelId,
+                () -> keycloakResilience.executeWithStaleFallback("studyMembership", studyId + ":" + personnelId,
+                        () -> fetchStudyRolesOfUser(studyId, personnelId)));
 
-        if (studyGroup == null) {
+        // Return true if the user is found in at least one of the desired subgroups
+        return roles.stream().anyMatch(studyRoles::contains);
+    }
+
+    /**
+     * Resolve the names of the study subgroups the personnel is a member of, directly from Keycloak.
+     *
+     * @param studyId the ID of the study
+     * @param personnelId the ID of the personnel (user)
+     * @return the set of role names the user holds in the study
+     */
+    private Set<String> fetchStudyRolesOfUser(String studyId, String personnelId) {
+        // Check the main study group
+        String studyGroupName = STUDY_GROUP_PREFIX + studyId;
+        if (findGroupIdByName(studyGroupName) == null) {
             throw new ResponseStatusException(HttpStatus.GONE, "Study group 'study-" + studyId + "' does not exist.");
         }
 
-        List<GroupRepresentation> subgroups = keycloak.realm(realm).groups().group(studyGroup.getId()).getSubGroups(0, 100, true);
-
-        // Iterate through the desired roles (subgroups)
-        for (String role : roles) {
-            // Find the subgroup for the role
-            GroupRepresentation subgroup = subgroups.stream()
-                    .filter(g -> g.getName().equals(role))
-                    .findFirst()
-                    .orElse(null);
-
-            if (subgroup != null) {
-                // Retrieve the members of the subgroup
-                List<UserRepresentation> members = keycloak.realm(realm).groups().group(subgroup.getId()).members();
-
-                // Check if the personnelId exists in the list of members
-                boolean isMember = members.stream().anyMatch(member -> member.getId().equals(personnelId));
-
-                if (isMember) {
-                    return true; // Return true if the user is found in at least one subgroup
-                }
-            }
-        }
+        // Role subgroups of the study are reported with the path /study-<id>/<ROLE>
+        String subgroupPathPrefix = "/" + studyGroupName + "/";
+        return listUserGroups(personnelId).stream()
+                .map(GroupRepresentation::getPath)
+                .filter(path -> path != null && path.startsWith(subgroupPathPrefix))
+                .map(path -> path.substring(subgroupPathPrefix.length()))
+                .collect(Collectors.toSet());
+    }
 
-        return false; // Return false if the user is not found in any of the desired subgroups
+    /**
+     * Lists all groups a user is a direct member of, page by page.
+     * A single request is capped at 100 groups by Keycloak, which users of many studies exceed.
+     * @param userId the ID of the user
+     * @return the groups of the user
+     */
+    private List<GroupRepresentation> listUserGroups(String userId) {
+        UserResource user = usersResource.get(userId);
+        List<GroupRepresentation> groups = new ArrayList<>();
+        int first = 0;
+        List<GroupRepresentation> page;
+        do {
+            page = user.groups(first, USER_GROUP_PAGE_SIZE);
+            groups.addAll(page);
+            first += USER_GROUP_PAGE_SIZE;
+        } while (page.size() == USER_GROUP_PAGE_SIZE);
+        return groups;
     }
 
     /**
@@ -416,12 +710,14 @@ public class KeycloakService {
      * @return a set of roles assigned to the user.
      */
     public Set<String> getUserRoles(String userId) {
-        UserResource userResource = usersResource.get(userId);
-        List<RoleRepresentation> userRoles = userResource.roles().realmLevel().listEffective();
-
-        return userRoles.stream()
-                .map(RoleRepresentation::getName)
-                .collect(Collectors.toSet());
+        return keycloakResilience.executeWithStaleFallback("userRoles", userId, () -> {
+            UserResource userResource = usersResource.get(userId);
+            List<RoleRepresentation> userRoles = userResource.roles().realmLevel().listEffective();
+
+            return userRoles.stream()
+                    .map(RoleRepresentation::getName)
+                    .collect(Collectors.toSet());
+        });
     }
 
     /**
@@ -433,10 +729,18 @@ public class KeycloakService {
         String groupName = "study-" + studyId;
 
         try {
-            String groupId = findGroupIdByName(groupName);
-
-            if (groupId != null) {
+            boolean deleted = retryOnStaleStudyGroup(groupName, () -> {
+                String groupId = findGroupIdByName(groupName);
+                if (groupId == null) {
+                    return false;
+                }
                 keycloak.realm(realm).groups().group(groupId).remove();
+                return true;
+            });
+
+            if (deleted) {
+                evictStudyGroupIndex(groupName);
+                studyMembershipCache.invalidateStudy(studyId);
                 log.info("Successfully deleted Keycloak group: {}", groupName);
             } else {
                 log.warn("Study group '{}' not found. Skipping deletion.", groupName);
@@ -0,0 +1,121 @@
+package io.passport.server.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.passport.server.config.KeycloakProvider;
+import jakarta.annotation.PreDestroy;
+import jakarta.ws.rs.NotAuthorizedException;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.keycloak.representations.AccessTokenResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client of the Keycloak token endpoint, backed by a shared pool of keep-alive connections.
+ * Records the latency of every token operation.
+ */
+@Service
+public class KeycloakTokenClient {
+
+    private static final Logger log = LoggerFactory.getLogger(KeycloakTokenClient.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final MeterRegistry meterRegistry;
+    private final CloseableHttpClient httpClient;
+    private final String tokenUrl;
+
+    @Autowired
+    public KeycloakTokenClient(KeycloakProvider keycloakProvider,
+                               MeterRegistry meterRegistry,
+                               @Value("${keycloak-client.token.max-connections:20}") int maxConnections,
+                               @Value("${keycloak-client.token.connect-timeout-ms:5000}") int connectTimeoutMs,
+                               @Value("${keycloak-client.token.socket-timeout-ms:10000}") int socketTimeoutMs) {
+        this.meterRegistry = meterRegistry;
+        this.tokenUrl = String.format("%s/realms/%s/protocol/openid-connect/token",
+                keycloakProvider.getServerURL(), keycloakProvider.getRealm());
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setConnectionRequestTimeout(connectTimeoutMs)
+                .setSocketTimeout(socketTimeoutMs)
+                .build();
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictIdleConnections(30, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Close the pooled connections at exit
+     */
+    @PreDestroy
+    void shutdown() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.warn("Error while closing Keycloak token client: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Posts a form to the token endpoint and parses the token response.
+     * Error responses other than 401 are parsed as well, leaving the access token empty.
+     * @param operation Name of the token operation, used as the metric tag
+     * @param form Form parameters of the token request
+     * @return AccessTokenResponse
+     * @throws NotAuthorizedException if Keycloak rejects the client or user credentials
+     */
+    public AccessTokenResponse requestToken(String operation, List<NameValuePair> form) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            HttpPost post = new HttpPost(tokenUrl);
+            post.setEntity(new UrlEncodedFormEntity(form));
+
+            try (CloseableHttpResponse response = httpClient.execute(post)) {
+                int status = response.getStatusLine().getStatusCode();
+                String json = EntityUtils.toString(response.getEntity());
+                if (status == 401) {
+                    outcome = "unauthorized";
+                    throw new NotAuthorizedException("Bearer");
+                }
+                outcome = status < 300 ? "success" : "error";
+                return objectMapper.readValue(json, AccessTokenResponse.class);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Keycloak token request failed: " + operation, e);
+        } finally {
+            sample.stop(Timer.builder("keycloak.token.requests")
+                    .description("Latency of Keycloak token endpoint operations")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+}
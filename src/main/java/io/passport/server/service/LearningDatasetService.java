@@ -14,6 +14,7 @@ import org.springframework.stereotype.Service;
 
 import jakarta.transaction.Transactional;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -145,6 +146,18 @@ public class LearningDatasetService {
         return learningDatasetRepository.findByDatasetId(datasetId);
     }
 
+    /**
+     * Find LearningDatasets of several Datasets in a single query
+     * @param datasetIds IDs of the Datasets
+     * @return
+     */
+    public List<LearningDataset> findByDatasetIds(Collection<String> datasetIds) {
+        if (datasetIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return learningDatasetRepository.findByDatasetIdIn(datasetIds);
+    }
+
     /**
      * Find a LearningDataset by learningDatasetId
      * @param learningDatasetId ID of the LearningDataset
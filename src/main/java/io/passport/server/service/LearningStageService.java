@@ -10,6 +10,7 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -122,6 +123,18 @@ public class LearningStageService {
         return learningStageRepository.findByLearningProcessId(learningProcessId);
     }
 
+    /**
+     * Return all learning stages of several Learning Processes in a single query
+     * @param learningProcessIds IDs of the learning processes
+     * @return
+     */
+    public List<LearningStage> findLearningStagesByProcessIds(Collection<String> learningProcessIds) {
+        if (learningProcessIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return learningStageRepository.findByLearningProcessIdIn(learningProcessIds);
+    }
+
     /**
      * Find a learning stage by learningStageId
      * @param learningStageId ID of the learning stage
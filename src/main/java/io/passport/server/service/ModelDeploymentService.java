@@ -1,6 +1,7 @@
 package io.passport.server.service;
 
 import io.passport.server.model.ModelDeployment;
+import io.passport.server.model.PassportDeploymentContext;
 import io.passport.server.model.Role;
 import io.passport.server.model.ValidationResult;
 import io.passport.server.repository.ModelDeploymentRepository;
@@ -144,6 +145,24 @@ public class ModelDeploymentService {
         return modelDeploymentRepository.findById(deploymentId);
     }
 
+    /**
+     * Find a model deployment together with its model, model owner organization and environment
+     * @param deploymentId ID of the model deployment
+     * @return
+     */
+    public Optional<PassportDeploymentContext> findDeploymentContextByDeploymentId(String deploymentId) {
+        return modelDeploymentRepository.findDeploymentContextByDeploymentId(deploymentId);
+    }
+
+    /**
+     * Find every model deployment of a study together with its model, model owner organization and environment
+     * @param studyId ID of the study
+     * @return
+     */
+    public List<PassportDeploymentContext> findDeploymentContextsByStudyId(String studyId) {
+        return modelDeploymentRepository.findDeploymentContextsByStudyId(studyId);
+    }
+
 
     /**
      * Save a model deployment
@@ -0,0 +1,261 @@
+package io.passport.server.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.passport.server.model.*;
+import io.passport.server.repository.PassportBuildJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class for asynchronous passport builds.
+ * Jobs are persisted as queued and claimed by a bounded pool of workers, so a restart does not lose queued work.
+ * Running jobs carry the ID of the claiming instance, which refreshes their heartbeat while it builds them.
+ * Jobs whose heartbeat is older than the stale timeout, because their instance stopped or crashed, are queued again
+ * by any instance. Jobs of instances which are still running are left alone.
+ */
+@Service
+public class PassportBuildJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(PassportBuildJobService.class);
+
+    private static final TypeReference<Map<String, Object>> SELECTION_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final PassportBuildJobRepository passportBuildJobRepository;
+    private final PassportService passportService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Fixed pool of job workers
+     */
+    private final ExecutorService workers;
+    private final int workerCount;
+    private final long pollIntervalMs;
+
+    /**
+     * ID of this instance recorded on the jobs it claims
+     */
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    /**
+     * Refreshes the heartbeat of the own running jobs and queues stale jobs again
+     */
+    private final ScheduledExecutorService heartbeats;
+    private final long heartbeatIntervalMs;
+    private final Duration staleTimeout;
+
+    /**
+     * Wakes idle workers up when a job is submitted
+     */
+    private final Semaphore wakeups = new Semaphore(0);
+
+    private volatile boolean running = true;
+
+    @Autowired
+    public PassportBuildJobService(PassportBuildJobRepository passportBuildJobRepository,
+                                   PassportService passportService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${passport.jobs.workers:2}") int workerCount,
+                                   @Value("${passport.jobs.poll-interval-ms:5000}") long pollIntervalMs,
+                                   @Value("${passport.jobs.heartbeat-interval-ms:15000}") long heartbeatIntervalMs,
+                                   @Value("${passport.jobs.stale-timeout-ms:120000}") long staleTimeoutMs) {
+        this.passportBuildJobRepository = passportBuildJobRepository;
+        this.passportService = passportService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workerCount = Math.max(1, workerCount);
+        this.pollIntervalMs = pollIntervalMs;
+        this.workers = Executors.newFixedThreadPool(this.workerCount,
+                Thread.ofPlatform().name("passport-job-", 0).factory());
+        this.heartbeatIntervalMs = Math.max(1, heartbeatIntervalMs);
+        this.staleTimeout = Duration.ofMillis(Math.max(staleTimeoutMs, 2 * this.heartbeatIntervalMs));
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("passport-job-heartbeat").daemon().factory());
+    }
+
+    /**
+     * Queue stale jobs again, then start the workers and the heartbeat once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        requeueStaleJobs();
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the workers at exit. Jobs still running stay in running state and are queued again by any instance
+     * once their heartbeat is stale.
+     */
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        heartbeats.shutdownNow();
+        wakeups.release(workerCount);
+        workers.shutdown();
+    }
+
+    /**
+     * Refresh the heartbeat of the jobs this instance is building, and queue the jobs of stopped instances again
+     */
+    private void heartbeat() {
+        try {
+            passportBuildJobRepository.heartbeat(PassportBuildJobStatus.RUNNING, instanceId, Instant.now());
+            requeueStaleJobs();
+        } catch (RuntimeException e) {
+            log.warn("Passport build job heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private void requeueStaleJobs() {
+        int requeued = passportBuildJobRepository.resetStaleStatus(PassportBuildJobStatus.RUNNING,
+                PassportBuildJobStatus.QUEUED, Instant.now().minus(staleTimeout));
+        if (requeued > 0) {
+            log.info("Queued {} interrupted passport build jobs again", requeued);
+            wakeups.release(Math.min(requeued, workerCount));
+        }
+    }
+
+    /**
+     * Queue a passport build.
+     * @param passportWithDetailSelection The passport object with basic info (deploymentId, studyId, etc.) and selected details of the passport.
+     * @return Queued job
+     */
+    public PassportBuildJob submit(PassportWithDetailSelection passportWithDetailSelection) {
+        Passport passport = passportWithDetailSelection.getPassport();
+
+        PassportBuildJob job = new PassportBuildJob();
+        job.setStudyId(passport.getStudyId());
+        job.setDeploymentId(passport.getDeploymentId());
+        job.setCreatedBy(passport.getCreatedBy());
+        job.setApprovedBy(passport.getApprovedBy());
+        job.setDetailsSelection(objectMapper.convertValue(passportWithDetailSelection.getPassportDetailsSelection(), SELECTION_TYPE));
+        job.setStatus(PassportBuildJobStatus.QUEUED);
+        job.setCreatedAt(Instant.now());
+
+        PassportBuildJob savedJob = passportBuildJobRepository.save(job);
+        wakeups.release();
+        return savedJob;
+    }
+
+    /**
+     * Find a job of a study
+     * @param jobId ID of the job
+     * @param studyId ID of the study the job belongs to
+     * @return
+     */
+    public Optional<PassportBuildJob> findJob(String jobId, String studyId) {
+        return passportBuildJobRepository.findByJobIdAndStudyId(jobId, studyId);
+    }
+
+    /**
+     * Worker loop which claims and builds queued jobs until shutdown
+     */
+    private void work() {
+        while (running) {
+            try {
+                Optional<PassportBuildJob> job = claimNextJob();
+                if (job.isPresent()) {
+                    build(job.get());
+                } else {
+                    wakeups.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Passport build worker error: {}", e.getMessage());
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims the oldest queued job, skipping jobs locked by other workers or instances
+     */
+    private Optional<PassportBuildJob> claimNextJob() {
+        return transactionTemplate.execute(status -> passportBuildJobRepository
+                .findFirstByStatusOrderByCreatedAtAsc(PassportBuildJobStatus.QUEUED)
+                .map(job -> {
+                    Instant now = Instant.now();
+                    job.setStatus(PassportBuildJobStatus.RUNNING);
+                    job.setStartedAt(now);
+                    job.setClaimedBy(instanceId);
+                    job.setHeartbeatAt(now);
+                    return passportBuildJobRepository.save(job);
+                }));
+    }
+
+    /**
+     * Builds the passport of a claimed job, persisting the progress after every section
+     */
+    private void build(PassportBuildJob job) {
+        Passport passport = new Passport();
+        passport.setStudyId(job.getStudyId());
+        passport.setDeploymentId(job.getDeploymentId());
+        passport.setCreatedBy(job.getCreatedBy());
+        passport.setApprovedBy(job.getApprovedBy());
+        PassportDetails selection = objectMapper.convertValue(job.getDetailsSelection(), PassportDetails.class);
+
+        try {
+            Passport savedPassport = passportService.createPassport(new PassportWithDetailSelection(passport, selection),
+                    new PassportBuildListener() {
+                        @Override
+                        public void onSectionsSelected(List<String> sectionNames) {
+                            job.setTotalSections(sectionNames.size());
+                            job.setHeartbeatAt(Instant.now());
+                            passportBuildJobRepository.save(job);
+                        }
+
+                        @Override
+                        public void onSectionWritten(String sectionName, int writtenSections) {
+                            job.setCompletedSections(writtenSections);
+                            job.setCurrentSection(sectionName);
+                            job.setHeartbeatAt(Instant.now());
+                            passportBuildJobRepository.save(job);
+                        }
+                    });
+            job.setPassportId(savedPassport.getPassportId());
+            job.setStatus(PassportBuildJobStatus.COMPLETED);
+        } catch (RuntimeException e) {
+            if (!running) {
+                log.warn("Passport build job {} interrupted by shutdown, it will be queued again", job.getJobId());
+                return;
+            }
+            log.error("Passport build job {} failed: {}", job.getJobId(), e.getMessage());
+            job.setStatus(PassportBuildJobStatus.FAILED);
+            job.setErrorMessage(e.getMessage());
+        }
+        job.setFinishedAt(Instant.now());
+        passportBuildJobRepository.save(job);
+    }
+}
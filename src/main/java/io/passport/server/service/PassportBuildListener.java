@@ -0,0 +1,29 @@
+package io.passport.server.service;
+
+import java.util.List;
+
+/**
+ * Listener of the progress of a passport build.
+ */
+public interface PassportBuildListener {
+
+    /**
+     * Listener which ignores the progress
+     */
+    PassportBuildListener NONE = new PassportBuildListener() {};
+
+    /**
+     * Called once the sections to build are known, before any of them is fetched.
+     * @param sectionNames detailsJson keys of the sections in build order
+     */
+    default void onSectionsSelected(List<String> sectionNames) {
+    }
+
+    /**
+     * Called after a section has been written into the passport details.
+     * @param sectionName detailsJson key of the section
+     * @param writtenSections Number of sections written so far
+     */
+    default void onSectionWritten(String sectionName, int writtenSections) {
+    }
+}
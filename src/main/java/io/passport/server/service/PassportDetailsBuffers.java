@@ -0,0 +1,76 @@
+package io.passport.server.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Shared pool of reusable buffers the passport details are streamed into before they are stored.
+ * At most pool size buffers of at most the retained limit each are kept between builds, so the retained memory is
+ * bounded regardless of the number of request threads. A buffer grown beyond the retained limit by a large passport,
+ * or returned while the pool is full, is dropped after use. Builds never wait for a pooled buffer.
+ */
+@Component
+public class PassportDetailsBuffers {
+
+    private static final int INITIAL_SIZE = 64 * 1024;
+
+    /**
+     * Byte buffer whose content can be read back without copying it.
+     */
+    public static final class DetailsBuffer extends ByteArrayOutputStream {
+
+        DetailsBuffer() {
+            super(INITIAL_SIZE);
+        }
+
+        /**
+         * @return Stream over the written bytes, sharing the buffer
+         */
+        public InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+
+    private final BlockingQueue<DetailsBuffer> buffers;
+    private final int maxRetainedBytes;
+
+    @Autowired
+    public PassportDetailsBuffers(@Value("${passport.details.buffer.pool-size:8}") int poolSize,
+                                  @Value("${passport.details.buffer.max-retained-bytes:4194304}") int maxRetainedBytes) {
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /**
+     * Runs the work with an empty buffer, taken from the pool or newly created if the pool is empty.
+     * @param work Work which writes into and reads from the buffer
+     * @return Result of the work
+     */
+    public <T> T withBuffer(Function<DetailsBuffer, T> work) {
+        DetailsBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new DetailsBuffer();
+        }
+        try {
+            buffer.reset();
+            return work.apply(buffer);
+        } finally {
+            if (buffer.capacity() <= maxRetainedBytes) {
+                buffer.reset();
+                buffers.offer(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.passport.server.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Store of passport details documents kept outside the passport table.
+ * The passport row only keeps the reference and the digest of its document.
+ * Without a store bean the documents stay inline in the details_json column.
+ */
+public interface PassportDocumentStore {
+
+    /**
+     * Reference and digest of a stored document.
+     * @param reference Store specific reference used to open the document
+     * @param digest Hex encoded SHA-256 digest of the uncompressed document
+     */
+    record StoredDocument(String reference, String digest) {}
+
+    /**
+     * Stores a document. Storing the same content twice keeps a single copy.
+     * @param document UTF-8 encoded JSON document
+     * @return Reference and digest of the document
+     */
+    StoredDocument store(InputStream document) throws IOException;
+
+    /**
+     * Opens a stored document for streaming.
+     * @param reference Reference returned when the document was stored
+     * @return Stream of the UTF-8 encoded JSON document, to be closed by the caller
+     */
+    InputStream open(String reference) throws IOException;
+}
@@ -1,14 +1,46 @@
 package io.passport.server.service;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.passport.server.model.*;
 import io.passport.server.repository.PassportRepository;
+import io.passport.server.repository.PassportRepositoryCustom.PassportWithDetailsJson;
+import io.passport.server.service.PassportDocumentStore.StoredDocument;
+import io.passport.server.util.EmptyFieldPolicy;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.Instant;
-import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -17,6 +49,12 @@ import java.util.stream.Collectors;
 @Service
 public class PassportService {
 
+    private static final Logger log = LoggerFactory.getLogger(PassportService.class);
+
+    private static final ObjectMapper detailsReader = new ObjectMapper();
+    private static final JsonFactory detailsFactory = detailsReader.getFactory();
+    private static final TypeReference<Map<String, Object>> DETAILS_TYPE = new TypeReference<>() {};
+
     /**
      * Passport repo access for database management.
      */
@@ -28,12 +66,6 @@ public class PassportService {
     @Autowired
     private ModelDeploymentService deploymentService;
 
-    @Autowired
-    private DeploymentEnvironmentService environmentService;
-
-    @Autowired
-    private ModelService modelService;
-
     @Autowired
     private StudyService studyService;
 
@@ -76,9 +108,6 @@ public class PassportService {
     @Autowired
     private EvaluationMeasureService evaluationMeasureService;
 
-    @Autowired
-    private OrganizationService organizationService;
-
     @Autowired
     private ModelFigureService modelFigureService;
 
@@ -87,10 +116,72 @@ public class PassportService {
     private LearningStageParameterService learningStageParameterService;
 
 
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Read-only transaction each passport section is fetched in
+     */
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Transaction batch passport inserts are written in
+     */
+    private final TransactionTemplate writeTransaction;
+
+    /**
+     * Whether the selected passport sections are fetched in parallel
+     */
+    @Value("${passport.assembly.parallel:true}")
+    private boolean parallelAssembly;
+
+    /**
+     * Bounded virtual thread executor for parallel section fetches
+     */
+    private final ExecutorService sectionExecutor;
+
+    /**
+     * Reusable buffers the passport details are streamed into
+     */
+    private final PassportDetailsBuffers detailsBuffers;
+
+    /**
+     * Store the passport details are kept in, empty if the details stay inline in the passport table
+     */
+    private final Optional<PassportDocumentStore> documentStore;
+
+    /**
+     * Count of passports serialized and inserted together when creating the passports of a study
+     */
+    private final int insertBatchSize;
+
     @Autowired
-    public PassportService(PassportRepository passportRepository, RoleCheckerService roleCheckerService) {
+    public PassportService(PassportRepository passportRepository,
+                           RoleCheckerService roleCheckerService,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           PassportDetailsBuffers detailsBuffers,
+                           Optional<PassportDocumentStore> documentStore,
+                           @Value("${passport.assembly.max-parallel-sections:4}") int maxParallelSections,
+                           @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int insertBatchSize) {
         this.passportRepository = passportRepository;
         this.roleCheckerService = roleCheckerService;
+        this.meterRegistry = meterRegistry;
+        this.detailsBuffers = detailsBuffers;
+        this.documentStore = documentStore;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.insertBatchSize = Math.max(1, insertBatchSize);
+        this.sectionExecutor = Executors.newFixedThreadPool(Math.max(1, maxParallelSections),
+                Thread.ofVirtual().name("passport-section-", 0).factory());
+    }
+
+    /**
+     * Stop the section workers at exit
+     */
+    @PreDestroy
+    void shutdown() {
+        sectionExecutor.shutdown();
     }
 
     /**
@@ -141,7 +232,22 @@ public class PassportService {
      * @return
      */
     public List<Passport> findPassportsByStudyId(String studyId) {
-        return passportRepository.findAllByStudyId(studyId);
+        List<Passport> passports = passportRepository.findAllByStudyId(studyId);
+        passports.forEach(this::loadStoredDetails);
+        return passports;
+    }
+
+    /**
+     * Find a page of passport summaries by studyId, sorted by creation time
+     * @param studyId ID of the related study
+     * @param page Zero based page index
+     * @param size Page size
+     * @param direction Sort direction of the creation time
+     * @return
+     */
+    public Page<PassportSummaryDTO> findPassportSummariesByStudyId(String studyId, int page, int size, Sort.Direction direction) {
+        return passportRepository.findSummariesByStudyId(studyId,
+                PageRequest.of(page, size, Sort.by(direction, "createdAt", "passportId")));
     }
 
     /**
@@ -160,118 +266,501 @@ public class PassportService {
 
     /**
      * Creates and stores Passport with detailsJson populated.
+     * The details are streamed section by section into a reusable buffer which is bound to the insert,
+     * so the document is never held as a String. The details of the returned passport are parsed from that buffer.
      *
      * @param passportWithDetailSelection The passport object with basic info (deploymentId, studyId, etc.) and selected details of the passport.
-     * @return The saved Passport.
+     * @return The saved Passport, with its details.
      */
     public Passport createPassport(PassportWithDetailSelection passportWithDetailSelection) {
+        return createPassport(passportWithDetailSelection, PassportBuildListener.NONE, true);
+    }
+
+    /**
+     * Creates and stores Passport with detailsJson populated, reporting the progress section by section.
+     *
+     * @param passportWithDetailSelection The passport object with basic info (deploymentId, studyId, etc.) and selected details of the passport.
+     * @param listener Listener of the build progress
+     * @return The saved Passport, without its details.
+     */
+    public Passport createPassport(PassportWithDetailSelection passportWithDetailSelection, PassportBuildListener listener) {
+        return createPassport(passportWithDetailSelection, listener, false);
+    }
+
+    private Passport createPassport(PassportWithDetailSelection passportWithDetailSelection, PassportBuildListener listener,
+                                    boolean withDetails) {
         try {
-            Map<String, Object> detailsJson = new HashMap<>();
-            if(passportWithDetailSelection.getPassportDetailsSelection().isModelDeploymentDetails()){
-                detailsJson.put("deploymentDetails", fetchDeploymentDetails(passportWithDetailSelection.getPassport()));
-            }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isEnvironmentDetails()){
-                detailsJson.put("environmentDetails", fetchEnvironmentDetails(passportWithDetailSelection.getPassport()));
-            }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isModelDetails()){
-                detailsJson.put("modelDetails", fetchModelDetails(passportWithDetailSelection.getPassport()));
-            }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isStudyDetails()){
-                detailsJson.put("studyDetails", fetchStudyDetails(passportWithDetailSelection.getPassport()));
-            }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isParameterDetails()){
-                detailsJson.put("parameters", fetchParameters(passportWithDetailSelection.getPassport()));
-            }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isParameterDetails()){
-                detailsJson.put("learningStageParameters", fetchLearningStageParameters(passportWithDetailSelection.getPassport()));
-            }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isParameterDetails()){
-                detailsJson.put("learningProcessParameters", fetchLearningProcessParameters(passportWithDetailSelection.getPassport()));
-            }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isPopulationDetails()){
-                detailsJson.put("populationDetails", fetchPopulationDetails(passportWithDetailSelection.getPassport()));
-            }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isSurveyDetails()){
-                detailsJson.put("surveys", fetchSurveys(passportWithDetailSelection.getPassport()));
-            }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isExperimentDetails()){
-                detailsJson.put("experiments", fetchExperiments(passportWithDetailSelection.getPassport()));
+            Passport passport = passportWithDetailSelection.getPassport();
+            PassportDetails selection = passportWithDetailSelection.getPassportDetailsSelection();
+            Map<String, Supplier<Object>> sections = selectSections(passport, selection);
+            listener.onSectionsSelected(List.copyOf(sections.keySet()));
+
+            passport.setPassportId(UUID.randomUUID().toString());
+            passport.setCreatedAt(Instant.now());
+            passport.setApprovedAt(Instant.now());
+            passport.setDetailsJson(null);
+
+            return detailsBuffers.withBuffer(buffer -> {
+                writeDetails(null, sections, selection.isExcludeEmptyFields(), buffer, listener);
+                if (documentStore.isPresent()) {
+                    storeDetails(passport, buffer.toInputStream());
+                    passportRepository.insertWithDetails(passport, null, 0);
+                } else {
+                    passportRepository.insertWithDetails(passport, buffer.toInputStream(), buffer.size());
+                }
+                if (withDetails) {
+                    passport.setDetailsJson(readDetails(buffer.toInputStream()));
+                }
+                return passport;
+            });
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Error creating passport: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates and stores a Passport for every model deployment of a study.
+     * Study scoped sections are fetched and serialized once and shared by all passports, only the deployment
+     * scoped sections are fetched per deployment. All passports are written in one transaction, serialized and
+     * inserted in chunks of the JDBC batch size, so only one chunk of documents is held in memory at a time.
+     *
+     * @param passportWithDetailSelection Basic info (studyId, createdBy, etc.) shared by the passports and selected details of the passports.
+     * @return The saved Passports, without their details.
+     */
+    public List<Passport> createPassportsForStudy(PassportWithDetailSelection passportWithDetailSelection) {
+        try {
+            Passport template = passportWithDetailSelection.getPassport();
+            PassportDetails selection = passportWithDetailSelection.getPassportDetailsSelection();
+            boolean excludeEmptyFields = selection.isExcludeEmptyFields();
+
+            List<PassportDeploymentContext> deploymentContexts = deploymentService.findDeploymentContextsByStudyId(template.getStudyId());
+            if (deploymentContexts.isEmpty()) {
+                return new ArrayList<>();
             }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isLinkedArticleDetails()){
-                detailsJson.put("linkedArticles", fetchLinkedArticles(passportWithDetailSelection.getPassport()));
+            TokenBuffer studySections = writeSharedSections(selectStudySections(template, selection), excludeEmptyFields);
+
+            Instant now = Instant.now();
+            List<Passport> created = new ArrayList<>(deploymentContexts.size());
+            List<String> storedReferences = new ArrayList<>();
+            try {
+                writeTransaction.executeWithoutResult(status -> {
+                    List<PassportWithDetailsJson> chunk = new ArrayList<>(insertBatchSize);
+                    for (PassportDeploymentContext deploymentContext : deploymentContexts) {
+                        Passport passport = new Passport();
+                        passport.setPassportId(UUID.randomUUID().toString());
+                        passport.setStudyId(template.getStudyId());
+                        passport.setDeploymentId(deploymentContext.deployment().getDeploymentId());
+                        passport.setCreatedBy(template.getCreatedBy());
+                        passport.setApprovedBy(template.getApprovedBy());
+                        passport.setCreatedAt(now);
+                        passport.setApprovedAt(now);
+
+                        byte[] detailsJson = detailsBuffers.withBuffer(buffer -> {
+                            writeDetails(studySections, selectDeploymentSections(deploymentContext, selection),
+                                    excludeEmptyFields, buffer, PassportBuildListener.NONE);
+                            if (documentStore.isPresent()) {
+                                storeDetails(passport, buffer.toInputStream());
+                                storedReferences.add(passport.getDetailsRef());
+                                return null;
+                            }
+                            return buffer.toByteArray();
+                        });
+                        chunk.add(new PassportWithDetailsJson(passport, detailsJson));
+                        created.add(passport);
+                        if (chunk.size() == insertBatchSize) {
+                            passportRepository.insertAllWithDetails(chunk);
+                            chunk.clear();
+                        }
+                    }
+                    if (!chunk.isEmpty()) {
+                        passportRepository.insertAllWithDetails(chunk);
+                    }
+                });
+            } catch (RuntimeException e) {
+                if (!storedReferences.isEmpty()) {
+                    // Stored documents are content addressed and may be shared with other passports, so they are kept
+                    log.warn("Passports of study {} were rolled back, {} stored details documents may be unreferenced: {}",
+                            template.getStudyId(), storedReferences.size(), storedReferences);
+                }
+                throw e;
             }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isFeatureSets()){
-                detailsJson.put("featureSetsWithFeatures", fetchFeatureSetsWithFeatures(passportWithDetailSelection.getPassport()));
+            return created;
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Error creating passports: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Collects the fetchers of the selected passport sections, keyed by their detailsJson key.
+     * @param passport The passport object with basic info (deploymentId, studyId, etc.)
+     * @param selection Selected details of the passport
+     * @return Section fetchers in passport order
+     */
+    private Map<String, Supplier<Object>> selectSections(Passport passport, PassportDetails selection) {
+        Map<String, Supplier<Object>> sections = new LinkedHashMap<>();
+        // The deployment chain is loaded once and shared by all deployment scoped sections
+        if (isDeploymentScoped(selection)) {
+            sections.putAll(selectDeploymentSections(fetchDeploymentContext(passport), selection));
+        }
+        sections.putAll(selectStudySections(passport, selection));
+        return sections;
+    }
+
+    /**
+     * Whether any section which depends on the deployment is selected.
+     */
+    private static boolean isDeploymentScoped(PassportDetails selection) {
+        return selection.isModelDeploymentDetails() || selection.isEnvironmentDetails()
+                || selection.isModelDetails() || selection.isEvaluationMeasures() || selection.isModelFigures();
+    }
+
+    /**
+     * Collects the fetchers of the selected sections which depend on the deployment of the passport.
+     * @param deploymentContext Deployment chain of the passport
+     * @param selection Selected details of the passport
+     * @return Section fetchers in passport order
+     */
+    private Map<String, Supplier<Object>> selectDeploymentSections(PassportDeploymentContext deploymentContext, PassportDetails selection) {
+        Map<String, Supplier<Object>> sections = new LinkedHashMap<>();
+        if(selection.isModelDeploymentDetails()){
+            sections.put("deploymentDetails", () -> fetchDeploymentDetails(deploymentContext));
+        }
+        if(selection.isEnvironmentDetails()){
+            sections.put("environmentDetails", () -> fetchEnvironmentDetails(deploymentContext));
+        }
+        if(selection.isModelDetails()){
+            sections.put("modelDetails", () -> fetchModelDetails(deploymentContext));
+        }
+        if(selection.isEvaluationMeasures()){
+            sections.put("evaluationMeasures", () -> fetchEvaluationMeasures(deploymentContext));
+        }
+        if(selection.isModelFigures()){
+            sections.put("modelFigures", () -> fetchModelFigures(deploymentContext));
+        }
+        return sections;
+    }
+
+    /**
+     * Collects the fetchers of the selected sections which only depend on the study of the passport.
+     * @param passport The passport object with basic info (deploymentId, studyId, etc.)
+     * @param selection Selected details of the passport
+     * @return Section fetchers in passport order
+     */
+    private Map<String, Supplier<Object>> selectStudySections(Passport passport, PassportDetails selection) {
+        Map<String, Supplier<Object>> sections = new LinkedHashMap<>();
+        if(selection.isStudyDetails()){
+            sections.put("studyDetails", () -> fetchStudyDetails(passport));
+        }
+        if(selection.isParameterDetails()){
+            sections.put("parameters", () -> fetchParameters(passport));
+            sections.put("learningStageParameters", () -> fetchLearningStageParameters(passport));
+            sections.put("learningProcessParameters", () -> fetchLearningProcessParameters(passport));
+        }
+        if(selection.isPopulationDetails()){
+            sections.put("populationDetails", () -> fetchPopulationDetails(passport));
+        }
+        if(selection.isSurveyDetails()){
+            sections.put("surveys", () -> fetchSurveys(passport));
+        }
+        if(selection.isExperimentDetails()){
+            sections.put("experiments", () -> fetchExperiments(passport));
+        }
+        if(selection.isLinkedArticleDetails()){
+            sections.put("linkedArticles", () -> fetchLinkedArticles(passport));
+        }
+        if(selection.isFeatureSets()){
+            sections.put("featureSetsWithFeatures", () -> fetchFeatureSetsWithFeatures(passport));
+        }
+        if(selection.isDatasets()){
+            sections.put("datasetsWithLearningDatasets", () -> fetchDatasetsWithLearningDatasets(passport));
+        }
+        if(selection.isLearningProcessDetails()){
+            sections.put("learningProcessesWithStages", () -> fetchLearningProcessesWithStages(passport));
+        }
+        return sections;
+    }
+
+    /**
+     * Writes the sections as the detailsJson document, applying the empty field policy while serializing.
+     * @param sharedSections Already serialized sections to copy into the document first, or null
+     * @param sections Section fetchers keyed by their detailsJson key
+     * @param excludeEmptyFields Whether blank String values are dropped instead of written as "N/A"
+     * @param out Stream the UTF-8 encoded document is written to
+     * @param listener Listener notified after each written section
+     */
+    private void writeDetails(TokenBuffer sharedSections, Map<String, Supplier<Object>> sections, boolean excludeEmptyFields,
+                              OutputStream out, PassportBuildListener listener) {
+        try (JsonGenerator generator = EmptyFieldPolicy.mapper(excludeEmptyFields).createGenerator(out)) {
+            generator.writeStartObject();
+            if (sharedSections != null) {
+                try (JsonParser parser = sharedSections.asParser()) {
+                    parser.nextToken();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        generator.copyCurrentStructure(parser);
+                    }
+                }
             }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isDatasets()){
-                detailsJson.put("datasetsWithLearningDatasets", fetchDatasetsWithLearningDatasets(passportWithDetailSelection.getPassport()));
+            int[] writtenSections = {0};
+            assembleSections(sections, (name, value) -> {
+                writeSection(generator, name, value, excludeEmptyFields);
+                listener.onSectionWritten(name, ++writtenSections[0]);
+            });
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing passport details", e);
+        }
+    }
+
+    /**
+     * Serializes sections once into a token buffer, so they can be copied into several documents.
+     * @param sections Section fetchers keyed by their detailsJson key
+     * @param excludeEmptyFields Whether blank String values are dropped instead of written as "N/A"
+     * @return Token buffer holding a single object of the sections
+     */
+    private TokenBuffer writeSharedSections(Map<String, Supplier<Object>> sections, boolean excludeEmptyFields) {
+        TokenBuffer buffer = new TokenBuffer(EmptyFieldPolicy.mapper(excludeEmptyFields), false);
+        try {
+            buffer.writeStartObject();
+            assembleSections(sections, (name, value) -> writeSection(buffer, name, value, excludeEmptyFields));
+            buffer.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing passport details", e);
+        }
+        return buffer;
+    }
+
+    private static void writeSection(JsonGenerator generator, String name, Object value, boolean excludeEmptyFields) {
+        try {
+            EmptyFieldPolicy.writeEntry(generator, name, value, excludeEmptyFields);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing passport section " + name, e);
+        }
+    }
+
+    /**
+     * Fetches the given sections and hands each result to the sink in section order.
+     * In parallel mode the sections are fanned out on the section executor, so the wall-clock time is that of
+     * the slowest section rather than the sum of all sections. Results are released once handed over,
+     * so only sections which are not yet written stay on the heap.
+     * @param sections Section fetchers keyed by their detailsJson key
+     * @param sink Consumer of the section results
+     */
+    private void assembleSections(Map<String, Supplier<Object>> sections, BiConsumer<String, Object> sink) {
+        if (!parallelAssembly || sections.size() < 2) {
+            sections.forEach((name, section) -> sink.accept(name, buildSection(name, section)));
+            return;
+        }
+
+        Map<String, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        sections.forEach((name, section) ->
+                futures.put(name, CompletableFuture.supplyAsync(() -> buildSection(name, section), sectionExecutor)));
+        try {
+            Iterator<Map.Entry<String, CompletableFuture<Object>>> it = futures.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, CompletableFuture<Object>> entry = it.next();
+                sink.accept(entry.getKey(), entry.getValue().join());
+                it.remove();
             }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isLearningProcessDetails()){
-                detailsJson.put("learningProcessesWithStages", fetchLearningProcessesWithStages(passportWithDetailSelection.getPassport()));
+        } catch (RuntimeException e) {
+            futures.values().forEach(future -> future.cancel(true));
+            throw e instanceof CompletionException && e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Fetches a single section in a read-only transaction and records its build time.
+     * @param name detailsJson key of the section
+     * @param section Section fetcher
+     * @return Section result
+     */
+    private Object buildSection(String name, Supplier<Object> section) {
+        long start = System.nanoTime();
+        try {
+            return readOnlyTransaction.execute(status -> section.get());
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Timer.builder("passport.section.build")
+                    .description("Fetch time of a passport details section")
+                    .tag("section", name)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            log.debug("Passport section {} built in {} ms", name, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+
+
+    /**
+     * Whether the passport exists in the study
+     * @param passportId ID of the passport
+     * @param studyId ID of the study the passport should belong to
+     * @return
+     */
+    public boolean existsPassportInStudy(String passportId, String studyId) {
+        return passportRepository.existsByPassportIdAndStudyId(passportId, studyId);
+    }
+
+    /**
+     * Fetch a single section of the passport details as stored, without deserializing it.
+     * @param passportId ID of the passport
+     * @param studyId ID of the study the passport belongs to
+     * @param sectionName detailsJson key of the section
+     * @return UTF-8 encoded JSON of the section
+     */
+    public Optional<byte[]> findPassportSection(String passportId, String studyId, String sectionName) {
+        Optional<byte[]> section = passportRepository.findDetailsSection(passportId, studyId, sectionName);
+        if (section.isPresent() || documentStore.isEmpty()) {
+            return section;
+        }
+        return passportRepository.findDetailsRefByPassportIdAndStudyId(passportId, studyId)
+                .flatMap(reference -> extractStoredSections(reference, List.of(sectionName), true));
+    }
+
+    /**
+     * Fetch several sections of the passport details as one JSON object, without deserializing them.
+     * @param passportId ID of the passport
+     * @param studyId ID of the study the passport belongs to
+     * @param sectionNames detailsJson keys of the sections
+     * @return UTF-8 encoded JSON object of the sections
+     */
+    public Optional<byte[]> findPassportSections(String passportId, String studyId, Collection<String> sectionNames) {
+        Optional<byte[]> sections = passportRepository.findDetailsSections(passportId, studyId, sectionNames);
+        if (sections.isPresent() || documentStore.isEmpty()) {
+            return sections;
+        }
+        return passportRepository.findDetailsRefByPassportIdAndStudyId(passportId, studyId)
+                .flatMap(reference -> extractStoredSections(reference, sectionNames, false));
+    }
+
+    /**
+     * Stores the details document in the document store and keeps its reference on the passport.
+     * @param passport Passport the details belong to
+     * @param detailsJson UTF-8 encoded details document
+     */
+    private void storeDetails(Passport passport, InputStream detailsJson) {
+        try {
+            StoredDocument document = documentStore.orElseThrow().store(detailsJson);
+            passport.setDetailsRef(document.reference());
+            passport.setDetailsDigest(document.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error storing passport details", e);
+        }
+    }
+
+    /**
+     * Reads the details of a passport kept in the document store into the passport.
+     * Passports with inline details are left as they are.
+     * @param passport Passport loaded from the database
+     */
+    private void loadStoredDetails(Passport passport) {
+        if (passport.getDetailsRef() == null) {
+            return;
+        }
+        PassportDocumentStore store = documentStore.orElseThrow(() ->
+                new IllegalStateException("Passport details are kept in a document store which is not configured"));
+        try (InputStream in = store.open(passport.getDetailsRef())) {
+            passport.setDetailsJson(detailsReader.readValue(in, DETAILS_TYPE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading passport details", e);
+        }
+    }
+
+    /**
+     * Parses an encoded details document.
+     * @param detailsJson UTF-8 encoded details document
+     * @return The details keyed by section
+     */
+    private static Map<String, Object> readDetails(InputStream detailsJson) {
+        try {
+            return detailsReader.readValue(detailsJson, DETAILS_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading passport details", e);
+        }
+    }
+
+    /**
+     * Copies the requested sections out of a stored details document while streaming through it.
+     * Other sections are skipped without being parsed into objects.
+     * @param reference Document store reference of the details
+     * @param sectionNames detailsJson keys of the sections
+     * @param singleSection Whether to return the bare value of a single section instead of an object of sections
+     * @return UTF-8 encoded JSON, empty if a single section is requested and missing
+     */
+    private Optional<byte[]> extractStoredSections(String reference, Collection<String> sectionNames, boolean singleSection) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        boolean found = !singleSection;
+        try (JsonParser parser = detailsFactory.createParser(documentStore.orElseThrow().open(reference));
+             JsonGenerator generator = detailsFactory.createGenerator(out)) {
+            parser.nextToken();
+            if (!singleSection) {
+                generator.writeStartObject();
             }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isEvaluationMeasures()){
-                detailsJson.put("evaluationMeasures", fetchEvaluationMeasures(passportWithDetailSelection.getPassport()));
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                if (!sectionNames.contains(parser.currentName())) {
+                    parser.nextToken();
+                    parser.skipChildren();
+                } else if (singleSection) {
+                    parser.nextToken();
+                    generator.copyCurrentStructure(parser);
+                    found = true;
+                    break;
+                } else {
+                    generator.copyCurrentStructure(parser);
+                }
             }
-            if(passportWithDetailSelection.getPassportDetailsSelection().isModelFigures()){
-                detailsJson.put("modelFigures", fetchModelFigures(passportWithDetailSelection.getPassport()));
+            if (!singleSection) {
+                generator.writeEndObject();
             }
-            cleanEmptyStringFieldsDeep(detailsJson, passportWithDetailSelection.getPassportDetailsSelection().isExcludeEmptyFields());
-            passportWithDetailSelection.getPassport().setDetailsJson(detailsJson);
-            passportWithDetailSelection.getPassport().setCreatedAt(Instant.now());
-            passportWithDetailSelection.getPassport().setApprovedAt(Instant.now());
-
-            return passportRepository.save(passportWithDetailSelection.getPassport());
-        } catch (RuntimeException e) {
-            throw new RuntimeException("Error creating passport: " + e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading passport details", e);
         }
+        return found ? Optional.of(out.toByteArray()) : Optional.empty();
     }
 
-
     /**
      * Fetch Passport by ID.
      */
     public Passport getPassportById(String passportId) {
-        return passportRepository.findById(passportId)
+        Passport passport = passportRepository.findById(passportId)
                 .orElseThrow(() -> new RuntimeException("Passport not found"));
+        loadStoredDetails(passport);
+        return passport;
     }
 
     /**
      * Fetch methods to obtain pdf generation data
      */
-    private ModelDeployment fetchDeploymentDetails(Passport passport) {
+    private PassportDeploymentContext fetchDeploymentContext(Passport passport) {
         try {
-            return deploymentService.findModelDeploymentByDeploymentId(passport.getDeploymentId())
+            return deploymentService.findDeploymentContextByDeploymentId(passport.getDeploymentId())
                     .orElseThrow(() -> new RuntimeException("Model Deployment not found"));
         } catch (RuntimeException e) {
-            System.err.println("Error fetching Model Deployment: " + e.getMessage());
+            log.error("Error fetching Model Deployment: {}", e.getMessage());
             throw e;
         }
     }
 
-    private DeploymentEnvironment fetchEnvironmentDetails(Passport passport) {
-        try {
-            ModelDeployment deployment = deploymentService.findModelDeploymentByDeploymentId(passport.getDeploymentId())
-                    .orElseThrow(() -> new RuntimeException("Model Deployment not found"));
-            return environmentService.findDeploymentEnvironmentById(deployment.getEnvironmentId())
-                    .orElseThrow(() -> new RuntimeException("Deployment Environment not found"));
-        } catch (RuntimeException e) {
-            System.err.println("Error fetching Deployment Environment: " + e.getMessage());
-            throw e;
+    private ModelDeployment fetchDeploymentDetails(PassportDeploymentContext deploymentContext) {
+        return deploymentContext.deployment();
+    }
+
+    private DeploymentEnvironment fetchEnvironmentDetails(PassportDeploymentContext deploymentContext) {
+        if (deploymentContext.environment() == null) {
+            log.error("Error fetching Deployment Environment: Deployment Environment not found");
+            throw new RuntimeException("Deployment Environment not found");
         }
+        return deploymentContext.environment();
     }
 
-    private ModelWithOwnerNameDTO fetchModelDetails(Passport passport) {
-        try {
-            ModelDeployment deployment = deploymentService.findModelDeploymentByDeploymentId(passport.getDeploymentId())
-                    .orElseThrow(() -> new RuntimeException("Model Deployment not found"));
-            Model model = modelService.findModelById(deployment.getModelId())
-                    .orElseThrow(() -> new RuntimeException("Model not found"));
-            ModelWithOwnerNameDTO modelWithOwnerNameDTO = new ModelWithOwnerNameDTO(model);
-            modelWithOwnerNameDTO.setOwner(organizationService.findOrganizationById(model.getOwner()).orElseThrow().getName());
-            return modelWithOwnerNameDTO;
-        } catch (RuntimeException e) {
-            throw new RuntimeException("Error fetching Model: " + e.getMessage());
+    private ModelWithOwnerNameDTO fetchModelDetails(PassportDeploymentContext deploymentContext) {
+        if (deploymentContext.model() == null) {
+            throw new RuntimeException("Error fetching Model: Model not found");
         }
+        if (deploymentContext.owner() == null) {
+            throw new RuntimeException("Error fetching Model: Owner organization not found");
+        }
+        ModelWithOwnerNameDTO modelWithOwnerNameDTO = new ModelWithOwnerNameDTO(deploymentContext.model());
+        modelWithOwnerNameDTO.setOwner(deploymentContext.owner().getName());
+        return modelWithOwnerNameDTO;
     }
 
     private Study fetchStudyDetails(Passport passport) {
@@ -345,11 +834,15 @@ public class PassportService {
     private List<Map<String, Object>> fetchFeatureSetsWithFeatures(Passport passport) {
         try {
             List<FeatureSet> featureSets = featureSetService.getAllFeatureSetsByStudyId(passport.getStudyId());
+            Map<String, List<Feature>> featuresBySet = featureService
+                    .findByFeaturesetIds(featureSets.stream().map(FeatureSet::getFeaturesetId).toList())
+                    .stream()
+                    .collect(Collectors.groupingBy(Feature::getFeaturesetId));
             return featureSets.stream()
                     .map(featureSet -> {
                         Map<String, Object> featureSetWithFeatures = new HashMap<>();
                         featureSetWithFeatures.put("featureSet", featureSet);
-                        featureSetWithFeatures.put("features", featureService.findByFeaturesetId(featureSet.getFeaturesetId()));
+                        featureSetWithFeatures.put("features", featuresBySet.getOrDefault(featureSet.getFeaturesetId(), new ArrayList<>()));
                         return featureSetWithFeatures;
                     })
                     .collect(Collectors.toList());
@@ -361,11 +854,15 @@ public class PassportService {
     private List<Map<String, Object>> fetchDatasetsWithLearningDatasets(Passport passport) {
         try {
             List<Dataset> datasets = datasetService.getAllDatasetsByStudyId(passport.getStudyId());
+            Map<String, List<LearningDataset>> learningDatasetsByDataset = learningDatasetService
+                    .findByDatasetIds(datasets.stream().map(Dataset::getDatasetId).toList())
+                    .stream()
+                    .collect(Collectors.groupingBy(LearningDataset::getDatasetId));
             return datasets.stream()
                     .map(dataset -> {
                         Map<String, Object> datasetWithLearningDatasets = new HashMap<>();
                         datasetWithLearningDatasets.put("dataset", dataset);
-                        datasetWithLearningDatasets.put("learningDatasets", learningDatasetService.findByDatasetId(dataset.getDatasetId()));
+                        datasetWithLearningDatasets.put("learningDatasets", learningDatasetsByDataset.getOrDefault(dataset.getDatasetId(), new ArrayList<>()));
                         return datasetWithLearningDatasets;
                     })
                     .collect(Collectors.toList());
@@ -377,11 +874,15 @@ public class PassportService {
     private List<Map<String, Object>> fetchLearningProcessesWithStages(Passport passport) {
         try {
             List<LearningProcess> learningProcesses = learningProcessService.getAllLearningProcessByStudyId(passport.getStudyId());
+            Map<String, List<LearningStage>> stagesByProcess = learningStageService
+                    .findLearningStagesByProcessIds(learningProcesses.stream().map(LearningProcess::getLearningProcessId).toList())
+                    .stream()
+                    .collect(Collectors.groupingBy(LearningStage::getLearningProcessId));
             return learningProcesses.stream()
                     .map(learningProcess -> {
                         Map<String, Object> learningProcessWithStages = new HashMap<>();
                         learningProcessWithStages.put("learningProcess", learningProcess);
-                        learningProcessWithStages.put("learningStages", learningStageService.findLearningStagesByProcessId(learningProcess.getLearningProcessId()));
+                        learningProcessWithStages.put("learningStages", stagesByProcess.getOrDefault(learningProcess.getLearningProcessId(), new ArrayList<>()));
                         return learningProcessWithStages;
                     })
                     .collect(Collectors.toList());
@@ -390,18 +891,18 @@ public class PassportService {
         }
     }
 
-    private List<EvaluationMeasure> fetchEvaluationMeasures(Passport passport) {
+    private List<EvaluationMeasure> fetchEvaluationMeasures(PassportDeploymentContext deploymentContext) {
         try {
-            String modelId = this.fetchDeploymentDetails(passport).getModelId();
+            String modelId = deploymentContext.deployment().getModelId();
             return evaluationMeasureService.findEvaluationMeasuresByModelId(modelId);
         } catch (RuntimeException e) {
             throw new RuntimeException("Error fetching Evaluation Measures: " + e.getMessage());
         }
     }
 
-    private List<ModelFigure> fetchModelFigures(Passport passport) {
+    private List<ModelFigure> fetchModelFigures(PassportDeploymentContext deploymentContext) {
         try {
-            String modelId = this.fetchDeploymentDetails(passport).getModelId();
+            String modelId = deploymentContext.deployment().getModelId();
             return modelFigureService.findByModelId(modelId);
         } catch (RuntimeException e) {
             throw new RuntimeException("Error fetching Model Figures: " + e.getMessage());
@@ -409,108 +910,6 @@ public class PassportService {
     }
 
 
-    private void cleanEmptyStringFieldsDeep(Object node, boolean excludeEmptyStringFields) {
-        if (node == null) return;
-
-        // Case 1: Map
-        if (node instanceof Map<?, ?>) {
-            Map<String, Object> map = (Map<String, Object>) node;
-            Iterator<Map.Entry<String, Object>> it = map.entrySet().iterator();
-            while (it.hasNext()) {
-                Map.Entry<String, Object> entry = it.next();
-                Object value = entry.getValue();
-
-                if (value == null) {
-                    // If value is null and the map schema expects String, we cannot infer type, so only replace if exclude=false
-                    if (!excludeEmptyStringFields) entry.setValue("N/A");
-                    continue;
-                }
-
-                if (value instanceof Map || value instanceof Collection<?>) {
-                    cleanEmptyStringFieldsDeep(value, excludeEmptyStringFields);
-                } else if (value instanceof String) {
-                    String s = (String) value;
-                    if (s.isBlank()) {
-                        if (excludeEmptyStringFields) it.remove();
-                        else entry.setValue("N/A");
-                    }
-                } else {
-                    // Handle nested POJO (e.g., Feature)
-                    cleanEmptyStringFieldsDeep(value, excludeEmptyStringFields);
-                }
-            }
-        }
-
-        // Case 2: Collection (List, Set, etc.)
-        else if (node instanceof Collection<?>) {
-            Collection coll = (Collection) node;
-            List<Object> cleaned = new ArrayList<>(coll.size());
-            for (Object item : coll) {
-                if (item == null) {
-                    if (!excludeEmptyStringFields) cleaned.add("N/A");
-                    continue;
-                }
-
-                if (item instanceof String) {
-                    String s = (String) item;
-                    if (s.isBlank()) {
-                        if (!excludeEmptyStringFields) cleaned.add("N/A");
-                    } else cleaned.add(s);
-                }
-                else if (item instanceof Map || item instanceof Collection<?>) {
-                    cleanEmptyStringFieldsDeep(item, excludeEmptyStringFields);
-                    cleaned.add(item);
-                }
-                else {
-                    cleanEmptyStringFieldsDeep(item, excludeEmptyStringFields); // handle POJO inside list
-                    cleaned.add(item);
-                }
-            }
-            coll.clear();
-            coll.addAll(cleaned);
-        }
-
-        // Case 3: POJO (e.g. Feature, Dataset, etc.)
-        else {
-            Class<?> clazz = node.getClass();
-
-            // Skip Java built-in immutable types
-            if (clazz.isPrimitive() ||
-                    clazz.getName().startsWith("java.") ||
-                    clazz.isEnum()) {
-                return;
-            }
-
-            for (Field field : clazz.getDeclaredFields()) {
-                field.setAccessible(true);
-                try {
-                    Object value = field.get(node);
-
-                    // Null field handling: if type is String and value is null → "N/A"
-                    if (value == null) {
-                        if (field.getType() == String.class && !excludeEmptyStringFields) {
-                            field.set(node, "N/A");
-                        }
-                        continue;
-                    }
-
-                    if (value instanceof String) {
-                        String s = (String) value;
-                        if (s.isBlank()) {
-                            if (excludeEmptyStringFields) field.set(node, null);
-                            else field.set(node, "N/A");
-                        }
-                    } else {
-                        cleanEmptyStringFieldsDeep(value, excludeEmptyStringFields);
-                    }
-
-                } catch (IllegalAccessException e) {
-                    throw new RuntimeException("Error while cleaning empty string fields: " + e.getMessage());
-                }
-            }
-        }
-    }
-
     /**
      * Find Passports created or approved by a specific personnel.
      */
@@ -0,0 +1,140 @@
+package io.passport.server.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Static assets of the passport pages (CSS, fonts, images), preloaded into memory from a local directory.
+ * While rendering, requests of the page are answered from the bundle and every other request is blocked,
+ * so renders never wait for the network. Without a configured directory the bundle is disabled and pages
+ * load their assets from the network.
+ */
+@Component
+public class PdfAssetBundle {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfAssetBundle.class);
+
+    /**
+     * Asset of the bundle
+     * @param body Content of the asset
+     * @param contentType Content type the asset is served with
+     */
+    public record Asset(byte[] body, String contentType) {}
+
+    private final Map<String, Asset> assets = new HashMap<>();
+    private final boolean enabled;
+    private final String version;
+    private final Counter served;
+    private final Counter blocked;
+
+    @Autowired
+    public PdfAssetBundle(MeterRegistry meterRegistry,
+                          @Value("${pdf.assets.directory:}") String directory) {
+        this.served = meterRegistry.counter("pdf.assets.requests", "outcome", "served");
+        this.blocked = meterRegistry.counter("pdf.assets.requests", "outcome", "blocked");
+        this.enabled = directory != null && !directory.isBlank();
+        if (!enabled) {
+            this.version = "";
+            return;
+        }
+
+        Path root = Path.of(directory).toAbsolutePath().normalize();
+        try (Stream<Path> files = Files.walk(root)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            List<Path> regularFiles = files.filter(Files::isRegularFile).sorted().toList();
+            long totalBytes = 0;
+            for (Path file : regularFiles) {
+                String path = root.relativize(file).toString().replace('\\', '/');
+                byte[] body = Files.readAllBytes(file);
+                String contentType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+                        .orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+                assets.put(path, new Asset(body, contentType));
+                digest.update(path.getBytes(StandardCharsets.UTF_8));
+                digest.update(body);
+                totalBytes += body.length;
+            }
+            this.version = HexFormat.of().formatHex(digest.digest());
+            log.info("Loaded {} PDF assets ({} bytes) from {}", assets.size(), totalBytes, root);
+        } catch (IOException e) {
+            throw new IllegalStateException("PDF asset directory is not readable: " + root, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Whether requests of the rendered pages are answered from the bundle
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Digest of the bundle contents. Cached renders are only valid for the bundle they were rendered with.
+     */
+    public String version() {
+        return version;
+    }
+
+    /**
+     * Resolves a request of a rendered page to an asset of the bundle.
+     * The URL path is taken relative to the path of the base URL of the page, falling back to the root of the bundle.
+     * @param url URL requested by the page
+     * @param baseUrl Base URL of the rendered HTML, may be null
+     * @return Asset to answer the request with, empty if the request is to be blocked
+     */
+    public Optional<Asset> resolve(String url, String baseUrl) {
+        Optional<Asset> asset = Optional.ofNullable(pathOf(url))
+                .flatMap(path -> {
+                    String basePath = baseUrl != null ? pathOf(baseUrl) : null;
+                    if (basePath != null && !basePath.isEmpty() && path.startsWith(basePath)) {
+                        Asset relative = assets.get(stripSlashes(path.substring(basePath.length())));
+                        if (relative != null) return Optional.of(relative);
+                    }
+                    return Optional.ofNullable(assets.get(stripSlashes(path)));
+                });
+        if (asset.isPresent()) {
+            served.increment();
+        } else {
+            blocked.increment();
+            log.debug("Blocked PDF render request: {}", url);
+        }
+        return asset;
+    }
+
+    private static String pathOf(String url) {
+        try {
+            return new URI(url).getPath();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private static String stripSlashes(String path) {
+        int start = 0;
+        while (start < path.length() && path.charAt(start) == '/') start++;
+        return path.substring(start);
+    }
+}
@@ -0,0 +1,204 @@
+package io.passport.server.service;
+
+import com.ruiyun.jvppeteer.api.core.Browser;
+import com.ruiyun.jvppeteer.cdp.core.Puppeteer;
+import com.ruiyun.jvppeteer.cdp.entities.LaunchOptions;
+import com.ruiyun.jvppeteer.cdp.entities.Viewport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * One headless Chrome process of the render farm, together with its page pool.
+ * The process is launched lazily and relaunched when its browser is gone. Failures of single renders only
+ * recycle their page. After repeated failures of either kind the process is considered unhealthy for a backoff
+ * period, so dispatch prefers the other processes.
+ */
+class PdfBrowserProcess {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfBrowserProcess.class);
+
+    /**
+     * Page pool of a launched browser.
+     * @param pagePool Pool of pages of the browser
+     * @param generation Launch count of the process when the pool was created
+     */
+    record Launch(PdfPagePool pagePool, int generation) {}
+
+    private final int index;
+    private final Supplier<LaunchOptions> launchOptions;
+    private final Viewport viewport;
+    private final int pagePoolSize;
+    private final int maxRendersPerPage;
+    private final int renderTimeoutMs;
+    private final int maxConsecutiveFailures;
+    private final long unhealthyBackoffNanos;
+    private final PdfAssetBundle assets;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object launchLock = new Object();
+    private volatile Browser browser;
+    private volatile Launch launch;
+    private int generation;
+    private int consecutiveBrowserFailures;
+    private int consecutivePageFailures;
+    private volatile long unhealthyUntilNanos;
+
+    PdfBrowserProcess(int index, Supplier<LaunchOptions> launchOptions, Viewport viewport, int pagePoolSize,
+                      int maxRendersPerPage, int renderTimeoutMs, int maxConsecutiveFailures, long unhealthyBackoffMs,
+                      PdfAssetBundle assets) {
+        this.index = index;
+        this.launchOptions = launchOptions;
+        this.viewport = viewport;
+        this.pagePoolSize = Math.max(1, pagePoolSize);
+        this.maxRendersPerPage = maxRendersPerPage;
+        this.renderTimeoutMs = renderTimeoutMs;
+        this.maxConsecutiveFailures = Math.max(1, maxConsecutiveFailures);
+        this.unhealthyBackoffNanos = TimeUnit.MILLISECONDS.toNanos(unhealthyBackoffMs);
+        this.assets = assets;
+    }
+
+    int index() {
+        return index;
+    }
+
+    /**
+     * Count of renders currently dispatched to the process
+     */
+    AtomicInteger inFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Whether the process is outside of its failure backoff
+     */
+    boolean isHealthy() {
+        return System.nanoTime() - unhealthyUntilNanos >= 0;
+    }
+
+    /**
+     * Launches the browser and warms its page pool up if it is not running
+     */
+    Launch getOrLaunch() throws Exception {
+        Launch l = launch;
+        if (l != null) return l;
+        synchronized (launchLock) {
+            if (launch != null) return launch;
+
+            Browser launched = Puppeteer.launch(launchOptions.get());
+            log.info("Launched headless Chrome process {} (jvppeteer)", index);
+
+            PdfPagePool pool = new PdfPagePool(launched, pagePoolSize, maxRendersPerPage, viewport, renderTimeoutMs, assets);
+            pool.warmUp();
+
+            browser = launched;
+            launch = new Launch(pool, ++generation);
+            return launch;
+        }
+    }
+
+    /**
+     * Reset the failure counts after a successful render
+     */
+    void recordSuccess() {
+        synchronized (launchLock) {
+            consecutiveBrowserFailures = 0;
+            consecutivePageFailures = 0;
+        }
+    }
+
+    /**
+     * Whether a render failed because the browser of the process is gone, rather than because of its page or document
+     * @param renderGeneration Generation of the launch the render ran on
+     * @param error Error of the render
+     */
+    boolean isBrowserGone(int renderGeneration, Throwable error) {
+        Launch l = launch;
+        Browser b = browser;
+        if (l == null || b == null || l.generation() != renderGeneration) {
+            return true;
+        }
+        try {
+            if (!b.isConnected()) return true;
+        } catch (Throwable t) {
+            return true;
+        }
+        return isConnectionClosed(error);
+    }
+
+    /**
+     * Count a render which failed on its page while the browser kept running.
+     * The page is recycled by its pool, the browser stays up for the other renders.
+     */
+    void recordPageFailure() {
+        synchronized (launchLock) {
+            if (++consecutivePageFailures >= maxConsecutiveFailures) {
+                backOff(consecutivePageFailures, "page");
+                consecutivePageFailures = 0;
+            }
+        }
+    }
+
+    /**
+     * Close the browser after it is gone, so the next render relaunches it.
+     * Failures of renders started on an earlier launch are ignored, since that browser is already replaced.
+     * @param failedGeneration Generation of the launch the render ran on
+     * @return Whether the process was closed because of this failure
+     */
+    boolean recordBrowserFailure(int failedGeneration) {
+        synchronized (launchLock) {
+            if (launch == null || launch.generation() != failedGeneration) {
+                return false;
+            }
+            if (++consecutiveBrowserFailures >= maxConsecutiveFailures) {
+                backOff(consecutiveBrowserFailures, "browser");
+                consecutiveBrowserFailures = 0;
+            }
+            close();
+            return true;
+        }
+    }
+
+    private void backOff(int failures, String kind) {
+        unhealthyUntilNanos = System.nanoTime() + unhealthyBackoffNanos;
+        log.warn("Chrome process {} had {} {} failures in a row; avoiding it for {} ms", index,
+                failures, kind, TimeUnit.NANOSECONDS.toMillis(unhealthyBackoffNanos));
+    }
+
+    /**
+     * Whether the error, or one of its causes, reports a closed DevTools connection, session or target
+     */
+    private static boolean isConnectionClosed(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            String message = t.getMessage();
+            if (message != null && (message.contains("Target closed")
+                    || message.contains("Session closed")
+                    || message.contains("Connection closed"))) {
+                return true;
+            }
+            if (t.getCause() == t) break;
+        }
+        return false;
+    }
+
+    /**
+     * Close the page pool and kill the browser process
+     */
+    void close() {
+        synchronized (launchLock) {
+            Launch l = launch;
+            Browser b = browser;
+            launch = null;
+            browser = null;
+            try {
+                if (l != null) l.pagePool().close();
+                if (b != null) b.close();
+            } catch (Throwable t) {
+                log.warn("Error closing Chrome process {}: {}", index, t.toString());
+            }
+        }
+    }
+}
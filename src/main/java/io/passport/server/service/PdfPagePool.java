@@ -0,0 +1,223 @@
+package io.passport.server.service;
+
+import com.ruiyun.jvppeteer.api.core.Browser;
+import com.ruiyun.jvppeteer.api.core.BrowserContext;
+import com.ruiyun.jvppeteer.api.core.CDPSession;
+import com.ruiyun.jvppeteer.api.core.Page;
+import com.ruiyun.jvppeteer.api.core.Request;
+import com.ruiyun.jvppeteer.api.events.PageEvents;
+import com.ruiyun.jvppeteer.cdp.entities.ResponseForRequest;
+import com.ruiyun.jvppeteer.cdp.entities.Viewport;
+import com.ruiyun.jvppeteer.common.MediaType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Pool of pre-initialized pages of one browser, each in its own isolated browser context.
+ * Pages are created with viewport, print media and timeouts applied, so a render only lays out and prints.
+ * Returned pages are scrubbed before they are reused, and recycled after a number of renders.
+ * Scrubbing and replacement run on a maintenance thread, off the render path.
+ * With an enabled asset bundle, requests of the pages are answered from the bundle and all others are blocked.
+ */
+class PdfPagePool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfPagePool.class);
+
+    /**
+     * Clears the storage reachable from the page document
+     */
+    private static final String CLEAR_STORAGE_SCRIPT = "() => {"
+            + " try { localStorage.clear(); } catch (e) {}"
+            + " try { sessionStorage.clear(); } catch (e) {}"
+            + " if (window.caches) { return caches.keys().then(ks => Promise.all(ks.map(k => caches.delete(k)))); }"
+            + " return true; }";
+
+    /**
+     * Page of the pool with its isolated context.
+     */
+    static final class PooledPage {
+        private final BrowserContext context;
+        private final Page page;
+        private final CDPSession session;
+        private int renders;
+        private volatile String baseUrl;
+
+        private PooledPage(BrowserContext context, Page page, CDPSession session) {
+            this.context = context;
+            this.page = page;
+            this.session = session;
+        }
+
+        Page page() {
+            return page;
+        }
+
+        /**
+         * Base URL of the HTML rendered next, asset requests are resolved relative to it
+         */
+        void setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+    }
+
+    private final Browser browser;
+    private final int maxRendersPerPage;
+    private final int timeoutMs;
+    private final Viewport viewport;
+    private final PdfAssetBundle assets;
+    private final BlockingQueue<PooledPage> idlePages;
+    private final ExecutorService maintenance;
+
+    private volatile boolean closed;
+
+    /**
+     * @param browser Browser the pages are opened in
+     * @param size Count of pages kept ready
+     * @param maxRendersPerPage Renders after which a page and its context are replaced
+     * @param viewport Viewport applied to every page
+     * @param timeoutMs Default navigation and operation timeout of the pages
+     * @param assets Static assets the requests of the pages are answered from
+     */
+    PdfPagePool(Browser browser, int size, int maxRendersPerPage, Viewport viewport, int timeoutMs, PdfAssetBundle assets) {
+        this.browser = browser;
+        this.maxRendersPerPage = Math.max(1, maxRendersPerPage);
+        this.viewport = viewport;
+        this.timeoutMs = timeoutMs;
+        this.assets = assets;
+        this.idlePages = new ArrayBlockingQueue<>(Math.max(1, size));
+        this.maintenance = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("pdf-page-pool").daemon().factory());
+    }
+
+    /**
+     * Fill the pool up to its size
+     */
+    void warmUp() {
+        while (!closed && idlePages.remainingCapacity() > 0) {
+            try {
+                if (!idlePages.offer(createPage())) break;
+            } catch (Exception e) {
+                log.warn("Could not pre-initialize PDF page: {}", e.toString());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes a ready page, or creates one if every pooled page is in use or being scrubbed.
+     */
+    PooledPage acquire() throws Exception {
+        PooledPage pooled = idlePages.poll();
+        return pooled != null ? pooled : createPage();
+    }
+
+    /**
+     * Gives a page back after a render.
+     * Healthy pages are scrubbed and pooled again, others and worn out pages are closed and replaced.
+     * @param pooled Page taken from {@link #acquire()}
+     * @param healthy Whether the render on the page completed without error
+     */
+    void release(PooledPage pooled, boolean healthy) {
+        pooled.renders++;
+        boolean recycle = !healthy || pooled.renders >= maxRendersPerPage;
+        try {
+            maintenance.execute(() -> {
+                if (!recycle && scrub(pooled) && !closed && idlePages.offer(pooled)) {
+                    return;
+                }
+                closePage(pooled);
+                if (recycle) warmUp();
+            });
+        } catch (RejectedExecutionException e) {
+            closePage(pooled);
+        }
+    }
+
+    /**
+     * Close every idle page. Pages in use are closed when they are released, or with the browser.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        maintenance.shutdownNow();
+        PooledPage pooled;
+        while ((pooled = idlePages.poll()) != null) {
+            closePage(pooled);
+        }
+    }
+
+    /**
+     * Opens a page in a new isolated context and applies the render settings
+     */
+    private PooledPage createPage() throws Exception {
+        BrowserContext context = browser.createBrowserContext();
+        try {
+            Page page = context.newPage();
+            try {
+                page.setDefaultNavigationTimeout(timeoutMs);
+                page.setDefaultTimeout(timeoutMs);
+            } catch (Throwable ignored) {}
+            page.setViewport(viewport);
+            page.emulateMediaType(MediaType.Print);
+            PooledPage pooled = new PooledPage(context, page, page.createCDPSession());
+            if (assets.isEnabled()) {
+                page.setRequestInterception(true);
+                page.on(PageEvents.Request, (Consumer<Request>) request -> answerFromAssets(pooled, request));
+            }
+            return pooled;
+        } catch (Exception e) {
+            try { context.close(); } catch (Throwable t) { log.debug("context.close() error: {}", t.toString()); }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes everything the previous render left behind: storage, cookies, caches and the document itself.
+     * @return Whether the page is clean and can be reused
+     */
+    private boolean scrub(PooledPage pooled) {
+        try {
+            pooled.page.evaluate(CLEAR_STORAGE_SCRIPT);
+            pooled.session.send("Network.clearBrowserCookies");
+            pooled.session.send("Network.clearBrowserCache");
+            pooled.page.setContent("<html><head></head><body></body></html>");
+            return true;
+        } catch (Throwable t) {
+            log.debug("PDF page scrub failed, replacing the page: {}", t.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Answers a request of the page from the asset bundle, or blocks it if the asset is not bundled
+     */
+    private void answerFromAssets(PooledPage pooled, Request request) {
+        try {
+            String url = request.url();
+            if (url.startsWith("data:") || url.startsWith("blob:")) {
+                request.continueRequest();
+                return;
+            }
+            assets.resolve(url, pooled.baseUrl).ifPresentOrElse(asset -> {
+                ResponseForRequest response = new ResponseForRequest();
+                response.setStatus(200);
+                response.setContentType(asset.contentType());
+                response.setBody(asset.body());
+                request.respond(response);
+            }, request::abort);
+        } catch (Throwable t) {
+            log.debug("PDF page request interception error: {}", t.toString());
+        }
+    }
+
+    private static void closePage(PooledPage pooled) {
+        try { pooled.page.close(); } catch (Throwable t) { log.debug("page.close() error: {}", t.toString()); }
+        try { pooled.context.close(); } catch (Throwable t) { log.debug("context.close() error: {}", t.toString()); }
+    }
+}
@@ -0,0 +1,247 @@
+package io.passport.server.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Cache of rendered PDFs, keyed by a digest of the render input.
+ * The memory tier is bounded by the total size of the cached PDFs. An optional disk tier keeps every rendered PDF,
+ * bounded by its own total size, and serves PDFs evicted from memory or cached before a restart.
+ * Concurrent requests for the same PDF wait for a single render.
+ */
+@Component
+public class PdfRenderCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfRenderCache.class);
+
+    private final Cache<String, byte[]> memory;
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> rendering = new ConcurrentHashMap<>();
+    private final Path diskDirectory;
+    private final long diskMaxBytes;
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final Object diskEvictionLock = new Object();
+
+    private final Counter diskHits;
+    private final Counter bytesSaved;
+
+    @Autowired
+    public PdfRenderCache(MeterRegistry meterRegistry,
+                          @Value("${pdf.render-cache.max-bytes:268435456}") long maxBytes,
+                          @Value("${pdf.render-cache.disk.directory:}") String diskDirectory,
+                          @Value("${pdf.render-cache.disk.max-bytes:2147483648}") long diskMaxBytes) {
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, byte[] pdf) -> pdf.length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "pdfRenders");
+
+        this.diskMaxBytes = diskMaxBytes;
+        this.diskDirectory = diskDirectory == null || diskDirectory.isBlank() ? null : Path.of(diskDirectory);
+        if (this.diskDirectory != null) {
+            try {
+                Files.createDirectories(this.diskDirectory);
+                try (Stream<Path> files = Files.list(this.diskDirectory)) {
+                    diskBytes.set(files.mapToLong(PdfRenderCache::sizeOf).sum());
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("PDF render cache directory is not usable: " + this.diskDirectory, e);
+            }
+        }
+
+        this.diskHits = Counter.builder("pdf.render.cache.disk.hits")
+                .description("PDF renders served from the disk tier of the render cache")
+                .register(meterRegistry);
+        this.bytesSaved = Counter.builder("pdf.render.cache.bytes.saved")
+                .description("Size of the PDFs served from the render cache instead of being rendered")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Digest of the render input, used as the cache key
+     * @param parts Render input, the normalized HTML followed by the render options
+     * @return Hex encoded SHA-256 digest
+     */
+    public static String key(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                if (part != null) digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Cached PDF of the key, if any, without rendering it
+     * @param key Digest of the render input
+     * @return
+     */
+    public byte[] getIfPresent(String key) {
+        byte[] pdf = memory.getIfPresent(key);
+        if (pdf == null) {
+            pdf = readFromDisk(key);
+            if (pdf != null) {
+                diskHits.increment();
+                memory.put(key, pdf);
+            }
+        }
+        if (pdf != null) {
+            bytesSaved.increment(pdf.length);
+        }
+        return pdf;
+    }
+
+    /**
+     * Returns the cached PDF of the key, rendering and caching it on a miss.
+     * The returned array is shared with the cache and must not be modified.
+     * @param key Digest of the render input
+     * @param renderer Render of the PDF
+     * @return PDF bytes
+     */
+    public byte[] get(String key, Callable<byte[]> renderer) throws Exception {
+        byte[] cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        return renderAndStore(key, renderer);
+    }
+
+    /**
+     * Renders and caches the PDF of a key whose lookup already missed, without looking it up again.
+     * A render of the same key already running is joined instead of rendering twice.
+     * The returned array is shared with the cache and must not be modified.
+     * @param key Digest of the render input
+     * @param renderer Render of the PDF
+     * @return PDF bytes
+     */
+    public byte[] renderAndStore(String key, Callable<byte[]> renderer) throws Exception {
+        CompletableFuture<byte[]> own = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = rendering.putIfAbsent(key, own);
+        if (running != null) {
+            try {
+                byte[] pdf = running.get();
+                bytesSaved.increment(pdf.length);
+                return pdf;
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ex ? ex : e;
+            }
+        }
+
+        try {
+            byte[] pdf = renderer.call();
+            memory.put(key, pdf);
+            writeToDisk(key, pdf);
+            own.complete(pdf);
+            return pdf;
+        } catch (Exception e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            rendering.remove(key, own);
+        }
+    }
+
+    private byte[] readFromDisk(String key) {
+        if (diskDirectory == null) return null;
+        Path file = diskDirectory.resolve(key + ".pdf");
+        try {
+            byte[] pdf = Files.readAllBytes(file);
+            // Touch the file so the disk tier evicts the least recently used PDFs first
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return pdf;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Could not read cached PDF {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, byte[] pdf) {
+        if (diskDirectory == null || pdf.length > diskMaxBytes) return;
+        Path file = diskDirectory.resolve(key + ".pdf");
+        try {
+            Path temp = Files.createTempFile(diskDirectory, key, ".tmp");
+            Files.write(temp, pdf);
+            long replaced = sizeOf(file);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (diskBytes.addAndGet(pdf.length - replaced) > diskMaxBytes) {
+                evictFromDisk();
+            }
+        } catch (IOException e) {
+            log.warn("Could not write cached PDF {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the least recently used PDFs of the disk tier until it fits its size bound
+     */
+    private void evictFromDisk() {
+        synchronized (diskEvictionLock) {
+            if (diskBytes.get() <= diskMaxBytes) return;
+            List<Path> files;
+            try (Stream<Path> listed = Files.list(diskDirectory)) {
+                files = listed.filter(f -> f.getFileName().toString().endsWith(".pdf"))
+                        .sorted(Comparator.comparing(PdfRenderCache::lastModified))
+                        .toList();
+            } catch (IOException e) {
+                log.warn("Could not list PDF render cache directory: {}", e.getMessage());
+                return;
+            }
+            for (Path file : files) {
+                if (diskBytes.get() <= diskMaxBytes) break;
+                long size = sizeOf(file);
+                try {
+                    if (Files.deleteIfExists(file)) diskBytes.addAndGet(-size);
+                } catch (IOException e) {
+                    log.debug("Could not delete cached PDF {}: {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
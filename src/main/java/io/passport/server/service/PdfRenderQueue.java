@@ -0,0 +1,184 @@
+package io.passport.server.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.passport.server.model.PdfRenderJob;
+import io.passport.server.model.PdfRenderJobStatus;
+import io.passport.server.model.PdfRequest;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Bounded queue in front of the PDF renderer.
+ * Renders run on a fixed pool of render workers, so waiting requests never pile up on HTTP worker threads
+ * beyond the queue capacity. Requests arriving at a full queue are rejected with an estimated retry time.
+ * Renders can be waited for, or submitted as jobs which are polled and downloaded later.
+ */
+@Service
+public class PdfRenderQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfRenderQueue.class);
+
+    /**
+     * Weight of a retained job besides its signed PDF, so jobs without a PDF are bounded as well
+     */
+    private static final int JOB_WEIGHT_BYTES = 1024;
+
+    private final PdfRenderService renderer;
+    private final PassportSignatureService passportSignatureService;
+    private final ThreadPoolExecutor workers;
+    private final Cache<String, PdfRenderJob> jobs;
+    private final long maxWaitMs;
+
+    @Autowired
+    public PdfRenderQueue(PdfRenderService renderer,
+                          PassportSignatureService passportSignatureService,
+                          MeterRegistry meterRegistry,
+                          @Value("${pdf.concurrent.renders:1}") int workerCount,
+                          @Value("${pdf.render.queue.capacity:20}") int capacity,
+                          @Value("${pdf.render.queue.max-wait-ms:60000}") long maxWaitMs,
+                          @Value("${pdf.jobs.retention-seconds:600}") long retentionSeconds,
+                          @Value("${pdf.jobs.max-retained-bytes:134217728}") long maxRetainedBytes) {
+        this.renderer = renderer;
+        this.passportSignatureService = passportSignatureService;
+        this.maxWaitMs = maxWaitMs;
+        this.workers = new ThreadPoolExecutor(Math.max(1, workerCount), Math.max(1, workerCount),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, capacity)),
+                Thread.ofPlatform().name("pdf-render-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(retentionSeconds))
+                .maximumWeight(maxRetainedBytes)
+                .weigher((String jobId, PdfRenderJob job) ->
+                        JOB_WEIGHT_BYTES + (job.getSignedPdf() != null ? job.getSignedPdf().length : 0))
+                .build();
+
+        Gauge.builder("pdf.render.queue.size", workers, executor -> executor.getQueue().size())
+                .description("PDF renders waiting for a render worker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stop the render workers at exit
+     */
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Renders and signs the PDF, waiting for the result.
+     * Cached PDFs are signed right away without queueing. A render which does not finish within the max wait
+     * keeps running, so a retry of the request is served from the render cache.
+     * @param req PDF generation request
+     * @return Signed PDF
+     * @throws PdfRenderRejectedException with 429 status if the queue is full, 503 if the render does not finish in time
+     */
+    public byte[] renderAndSign(PdfRequest req) throws Exception {
+        byte[] cached = renderer.renderIfCached(req.getHtmlContent(), req.getBaseUrl(), width(req), height(req), landscape(req));
+        if (cached != null) {
+            return passportSignatureService.generateSignature(cached);
+        }
+
+        Future<byte[]> future = enqueue(() -> passportSignatureService.generateSignature(
+                renderer.renderUncachedAndStore(req.getHtmlContent(), req.getBaseUrl(), width(req), height(req), landscape(req))));
+        try {
+            return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new PdfRenderRejectedException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "PDF render did not finish in time, retry later.", renderer.estimateWaitSeconds(workers.getQueue().size()));
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ex ? ex : e;
+        }
+    }
+
+    /**
+     * Queues a render job
+     * @param req PDF generation request
+     * @return Queued job
+     * @throws PdfRenderRejectedException with 429 status if the queue is full
+     */
+    public PdfRenderJob submit(PdfRequest req) {
+        PdfRenderJob job = new PdfRenderJob();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setStudyId(req.getStudyId());
+        job.setFileName(req.getFileName());
+        job.setStatus(PdfRenderJobStatus.QUEUED);
+        job.setCreatedAt(Instant.now());
+        jobs.put(job.getJobId(), job);
+
+        try {
+            enqueue(() -> {
+                job.setStatus(PdfRenderJobStatus.RUNNING);
+                job.setStartedAt(Instant.now());
+                try {
+                    job.setSignedPdf(renderAndSignNow(req));
+                    job.setStatus(PdfRenderJobStatus.COMPLETED);
+                } catch (Exception e) {
+                    log.error("PDF render job {} failed: {}", job.getJobId(), e.getMessage());
+                    job.setErrorMessage(e.getMessage());
+                    job.setStatus(PdfRenderJobStatus.FAILED);
+                }
+                job.setFinishedAt(Instant.now());
+                // Weigh the job again with its PDF, and keep it for the retention time from now on
+                jobs.asMap().replace(job.getJobId(), job);
+                return null;
+            });
+        } catch (PdfRenderRejectedException e) {
+            jobs.invalidate(job.getJobId());
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Find a render job of a study
+     * @param jobId ID of the job
+     * @param studyId ID of the study the job belongs to
+     * @return
+     */
+    public Optional<PdfRenderJob> findJob(String jobId, String studyId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId))
+                .filter(job -> job.getStudyId() != null && job.getStudyId().equals(studyId));
+    }
+
+    private <T> Future<T> enqueue(Callable<T> task) {
+        try {
+            return workers.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new PdfRenderRejectedException(HttpStatus.TOO_MANY_REQUESTS,
+                    "PDF render queue is full, retry later.", renderer.estimateWaitSeconds(workers.getQueue().size()));
+        }
+    }
+
+    private byte[] renderAndSignNow(PdfRequest req) throws Exception {
+        byte[] pdf = renderer.render(req.getHtmlContent(), req.getBaseUrl(), width(req), height(req), landscape(req));
+        return passportSignatureService.generateSignature(pdf);
+    }
+
+    private static String width(PdfRequest req) {
+        return (req.getWidth() != null && !req.getWidth().isBlank()) ? req.getWidth() : "420mm";
+    }
+
+    private static String height(PdfRequest req) {
+        return (req.getHeight() != null && !req.getHeight().isBlank()) ? req.getHeight() : "297mm";
+    }
+
+    private static Boolean landscape(PdfRequest req) {
+        return (req.getLandscape() != null) ? req.getLandscape() : Boolean.TRUE;
+    }
+}
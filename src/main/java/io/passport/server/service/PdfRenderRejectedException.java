@@ -0,0 +1,27 @@
+package io.passport.server.service;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when a PDF render is not accepted or not finished in time because the render queue is busy.
+ * Carries the response status and the estimated time after which the request can be retried.
+ */
+public class PdfRenderRejectedException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public PdfRenderRejectedException(HttpStatus status, String message, long retryAfterSeconds) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,26 +1,31 @@
 package io.passport.server.service;
 
-import com.ruiyun.jvppeteer.api.core.Browser;
-import com.ruiyun.jvppeteer.api.core.BrowserContext;
 import com.ruiyun.jvppeteer.api.core.Page;
-import com.ruiyun.jvppeteer.cdp.core.Puppeteer;
 import com.ruiyun.jvppeteer.cdp.entities.LaunchOptions;
 import com.ruiyun.jvppeteer.cdp.entities.PDFOptions;
 import com.ruiyun.jvppeteer.cdp.entities.Viewport;
 import com.ruiyun.jvppeteer.cdp.entities.WaitForOptions;
-import com.ruiyun.jvppeteer.common.MediaType;
 import com.ruiyun.jvppeteer.common.PuppeteerLifeCycle;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Renders HTML to PDF on a farm of headless Chrome processes.
+ * Each render is dispatched to the least loaded healthy process. The count of parallel renders adapts
+ * between its bounds to the observed render time and memory pressure.
+ */
 @Service
 public class PdfRenderService {
 
@@ -39,110 +44,253 @@ public class PdfRenderService {
     private Double deviceScaleFactor;
 
     /**
-     * Max count of parallel renders
+     * Max count of parallel renders over all Chrome processes
      */
     @Value("${pdf.concurrent.renders:1}")
     private int maxConcurrentRenders;
 
+    /**
+     * Min count of parallel renders, kept even under memory pressure
+     */
+    @Value("${pdf.concurrent.renders.min:1}")
+    private int minConcurrentRenders;
+
+    /**
+     * Render time up to which the count of parallel renders may grow
+     */
+    @Value("${pdf.concurrent.renders.target-ms:5000}")
+    private long targetRenderMs;
+
+    /**
+     * Ratio of available to total memory below which the count of parallel renders shrinks, 0 disables the check
+     */
+    @Value("${pdf.concurrent.renders.min-free-memory-ratio:0.15}")
+    private double minFreeMemoryRatio;
+
+    /**
+     * Count of independent Chrome processes
+     */
+    @Value("${pdf.browser.processes:1}")
+    private int browserProcesses;
+
+    /**
+     * Failed renders in a row after which a Chrome process is avoided for the backoff period
+     */
+    @Value("${pdf.browser.max-consecutive-failures:3}")
+    private int maxConsecutiveFailures;
+
+    @Value("${pdf.browser.unhealthy-backoff.ms:30000}")
+    private long unhealthyBackoffMs;
+
     /**
      * Render timeout to kill halted generation processes
      */
     @Value("${pdf.render.timeout.ms:45000}")
     private int renderTimeoutMs;
 
-    private final Object launchLock = new Object();
-    private volatile Browser browser;
-    private Semaphore renderSlots;
+    /**
+     * Count of pre-initialized pages kept ready per Chrome process, 0 shares the max parallel renders among the processes
+     */
+    @Value("${pdf.page-pool.size:0}")
+    private int pagePoolSize;
+
+    /**
+     * Renders after which a pooled page and its browser context are replaced
+     */
+    @Value("${pdf.page-pool.max-renders-per-page:50}")
+    private int maxRendersPerPage;
+
+    private final MeterRegistry meterRegistry;
+    private final PdfRenderCache renderCache;
+    private final PdfAssetBundle assets;
+    private final List<PdfBrowserProcess> processes = new ArrayList<>();
+    private AdaptiveRenderLimit renderLimit;
+
+    /**
+     * Moving average of the render time, used to estimate queue waits
+     */
+    private volatile double averageRenderNanos;
+
+    @Autowired
+    public PdfRenderService(MeterRegistry meterRegistry, PdfRenderCache renderCache, PdfAssetBundle assets) {
+        this.meterRegistry = meterRegistry;
+        this.renderCache = renderCache;
+        this.assets = assets;
+    }
 
     @PostConstruct
     void init() {
-        renderSlots = new Semaphore(Math.max(1, maxConcurrentRenders));
+        int maxRenders = Math.max(1, maxConcurrentRenders);
+        int processCount = Math.max(1, browserProcesses);
+        int pagesPerProcess = pagePoolSize > 0 ? pagePoolSize : (maxRenders + processCount - 1) / processCount;
+
+        Viewport vp = new Viewport();
+        vp.setWidth(viewportWidth);
+        vp.setHeight(viewportHeight);
+        vp.setDeviceScaleFactor(deviceScaleFactor);
+
+        for (int i = 0; i < processCount; i++) {
+            processes.add(new PdfBrowserProcess(i, this::launchOptions, vp, pagesPerProcess, maxRendersPerPage,
+                    renderTimeoutMs, maxConsecutiveFailures, unhealthyBackoffMs, assets));
+        }
+        renderLimit = new AdaptiveRenderLimit(Math.min(minConcurrentRenders, maxRenders), maxRenders,
+                targetRenderMs, minFreeMemoryRatio);
+
+        Gauge.builder("pdf.render.concurrency.limit", renderLimit, AdaptiveRenderLimit::limit)
+                .description("Current limit of parallel PDF renders")
+                .register(meterRegistry);
+        Gauge.builder("pdf.render.in.flight", renderLimit, AdaptiveRenderLimit::inFlight)
+                .description("PDF renders currently running")
+                .register(meterRegistry);
     }
 
     /**
-     * Kill browser process at exit
+     * Kill browser processes at exit
      */
     @PreDestroy
     void shutdown() {
-        try {
-            Browser b = browser;
-            browser = null;
-            if (b != null) b.close();
-        } catch (Throwable t) {
-            log.warn("Error while closing Chrome on shutdown: {}", t.toString());
+        for (PdfBrowserProcess process : processes) {
+            process.close();
         }
     }
 
     /**
-     * Main process that waits the Semaphore and initializes the procedure
+     * Returns the PDF of the HTML from the render cache, rendering it on a miss.
+     * The returned array is shared with the cache and must not be modified.
      */
     public byte[] render(String html, String baseUrl, String width, String height, Boolean landscape) throws Exception {
-        renderSlots.acquire();
+        return renderCache.get(cacheKey(html, baseUrl, width, height, landscape),
+                () -> renderUncached(html, baseUrl, width, height, landscape));
+    }
+
+    /**
+     * Renders the PDF of the HTML and stores it in the render cache, for callers whose cache lookup already missed.
+     * The returned array is shared with the cache and must not be modified.
+     */
+    public byte[] renderUncachedAndStore(String html, String baseUrl, String width, String height, Boolean landscape) throws Exception {
+        return renderCache.renderAndStore(cacheKey(html, baseUrl, width, height, landscape),
+                () -> renderUncached(html, baseUrl, width, height, landscape));
+    }
+
+    /**
+     * Cached PDF of the HTML, without rendering it on a miss
+     * @return PDF bytes shared with the cache, or null if the PDF is not cached
+     */
+    public byte[] renderIfCached(String html, String baseUrl, String width, String height, Boolean landscape) {
+        return renderCache.getIfPresent(cacheKey(html, baseUrl, width, height, landscape));
+    }
+
+    /**
+     * Estimated time until a render queued behind the given count of renders finishes
+     * @param queuedRenders Renders waiting ahead of the render
+     * @return Estimated wait in seconds, at least 1
+     */
+    public long estimateWaitSeconds(int queuedRenders) {
+        double renderNanos = averageRenderNanos > 0 ? averageRenderNanos : TimeUnit.MILLISECONDS.toNanos(targetRenderMs);
+        double waitNanos = (queuedRenders + 1) * renderNanos / Math.max(1, renderLimit.limit());
+        return Math.max(1, (long) Math.ceil(waitNanos / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    /**
+     * Main process that waits for a render slot and initializes the procedure
+     */
+    private byte[] renderUncached(String html, String baseUrl, String width, String height, Boolean landscape) throws Exception {
+        renderLimit.acquire();
+        long start = System.nanoTime();
         try {
             return renderOnceWithRetry(html, baseUrl, width, height, landscape);
         } finally {
-            renderSlots.release();
+            long renderNanos = System.nanoTime() - start;
+            renderLimit.release(renderNanos);
+            double average = averageRenderNanos;
+            averageRenderNanos = average > 0 ? average * 0.8 + renderNanos * 0.2 : renderNanos;
         }
     }
 
-
     /**
-     * Trigger render with error handling for Browser issues
+     * Trigger render with error handling for Browser issues.
+     * If the Chrome process of a render is gone, it is relaunched and the render is retried once, on another process
+     * if there is one. Other render errors only recycle the page, so renders in flight on the same process continue.
      */
     private byte[] renderOnceWithRetry(String html, String baseUrl, String width, String height, Boolean landscape) throws Exception {
-        boolean retried = false;
+        PdfBrowserProcess failed = null;
         while (true) {
+            PdfBrowserProcess process = leastLoadedProcess(failed);
+            process.inFlight().incrementAndGet();
+            PdfBrowserProcess.Launch launch = null;
             try {
-                return doRender(html, baseUrl, width, height, landscape);
+                launch = process.getOrLaunch();
+                byte[] out = doRender(launch.pagePool(), html, baseUrl, width, height, landscape);
+                process.recordSuccess();
+                return out;
             } catch (Throwable t) {
-                // Close the Browser if it is not closed by the error, to prevent dangling browser
                 String msg = String.valueOf(t.getMessage());
-                if (!retried) {
-                    log.warn("Chrome likely dead; relaunching and retrying once: {}", msg);
-                    safeCloseBrowser();
-                    retried = true;
+                if (launch != null && !process.isBrowserGone(launch.generation(), t)) {
+                    // The render failed on its page or document, the pool already recycled the page
+                    process.recordPageFailure();
+                    meterRegistry.counter("pdf.render.page.failures", "process", String.valueOf(process.index())).increment();
+                    throw t instanceof Exception ? (Exception) t : new RuntimeException(t);
+                }
+                // Close the Browser if it is not closed by the error, to prevent dangling browser
+                if (launch != null && process.recordBrowserFailure(launch.generation())) {
+                    meterRegistry.counter("pdf.browser.restarts", "process", String.valueOf(process.index())).increment();
+                }
+                if (failed == null) {
+                    log.warn("Chrome process {} is gone; relaunching and retrying once: {}", process.index(), msg);
+                    failed = process;
                     continue;
                 }
                 throw t instanceof Exception ? (Exception) t : new RuntimeException(t);
+            } finally {
+                process.inFlight().decrementAndGet();
             }
         }
     }
 
     /**
-     * Main rendering logic
+     * Healthy process with the fewest renders in flight. Falls back to unhealthy processes if none is healthy.
+     * @param avoided Process to skip if another one is available
      */
-    private byte[] doRender(String html, String baseUrl, String width, String height, Boolean landscape) throws Exception {
-        BrowserContext context = null;
-        Page page = null;
+    private PdfBrowserProcess leastLoadedProcess(PdfBrowserProcess avoided) {
+        PdfBrowserProcess best = null;
+        boolean bestHealthy = false;
+        for (PdfBrowserProcess process : processes) {
+            if (process == avoided && processes.size() > 1) continue;
+            boolean healthy = process.isHealthy();
+            if (best == null
+                    || (healthy && !bestHealthy)
+                    || (healthy == bestHealthy && process.inFlight().get() < best.inFlight().get())) {
+                best = process;
+                bestHealthy = healthy;
+            }
+        }
+        return best;
+    }
 
-        Browser b = getOrLaunchBrowser();
+    /**
+     * Main rendering logic, on a pre-initialized page of the pool.
+     * With the asset bundle every request is answered locally, so the render only waits for the load event and
+     * the fonts instead of an idle network.
+     */
+    private byte[] doRender(PdfPagePool pool, String html, String baseUrl, String width, String height, Boolean landscape) throws Exception {
+        PdfPagePool.PooledPage pooled = pool.acquire();
+        boolean healthy = false;
 
         try {
-            context = b.createBrowserContext();
-            page = context.newPage();
-
-            setTimeouts(page, renderTimeoutMs);
-
-            Viewport vp = new Viewport();
-            vp.setWidth(viewportWidth);
-            vp.setHeight(viewportHeight);
-            vp.setDeviceScaleFactor(deviceScaleFactor);
-            page.setViewport(vp);
-
-            page.emulateMediaType(MediaType.Print);
+            Page page = pooled.page();
 
             String htmlWithBase = (baseUrl != null && !baseUrl.isBlank())
                     ? html.replaceFirst("(?i)<head>", "<head><base href=\"" + baseUrl + "\">")
                     : html;
 
+            pooled.setBaseUrl(baseUrl);
             WaitForOptions wait = new WaitForOptions();
-            wait.setWaitUntil(List.of(PuppeteerLifeCycle.networkIdle));
+            wait.setWaitUntil(List.of(assets.isEnabled() ? PuppeteerLifeCycle.load : PuppeteerLifeCycle.networkIdle));
             wait.setTimeout(renderTimeoutMs);
             page.setContent(htmlWithBase, wait);
-
-            try {
-                page.evaluate("() => { if (window.caches) { return caches.keys().then(ks => Promise.all(ks.map(k => caches.delete(k)))) } return true; }");
-            } catch (Throwable ignored) {}
+            if (assets.isEnabled()) {
+                page.evaluate("() => document.fonts.ready.then(() => true)");
+            }
 
             PDFOptions pdf = new PDFOptions();
             pdf.setPrintBackground(true);
@@ -152,6 +300,7 @@ public class PdfRenderService {
             if (height != null && !height.isBlank()) pdf.setHeight(height);
 
             byte[] out = page.pdf(pdf);
+            healthy = true;
 
             if (log.isDebugEnabled()) {
                 log.debug("PDF render OK");
@@ -159,70 +308,51 @@ public class PdfRenderService {
             return out;
 
         } finally {
-            try { if (page != null) page.close(); } catch (Throwable t) { log.debug("page.close() error: {}", t.toString()); }
-            try { if (context != null) context.close(); } catch (Throwable t) { log.debug("context.close() error: {}", t.toString()); }
+            pool.release(pooled, healthy);
         }
     }
 
     /**
-     * Browser launch method to initially start the Browser instance
-     * Utilizes many arguments to prevent caching, in turn preventing unintended passive memory bloat
+     * Render cache key of the HTML and every option affecting the PDF.
+     * Line endings and trailing whitespace of the HTML lines are normalized, since they never change the output.
+     * The asset bundle version is part of the key, so a new bundle never serves PDFs rendered with the old one.
      */
-    private Browser getOrLaunchBrowser() throws Exception {
-        Browser b = browser;
-        if (b != null) return b;
-        synchronized (launchLock) {
-            if (browser != null) return browser;
-
-            LaunchOptions launch = LaunchOptions.builder().build();
-            launch.setHeadless(true);
-            launch.setArgs(Arrays.asList(
-                    "--incognito",
-                    "--no-sandbox",
-                    "--disable-setuid-sandbox",
-                    "--disable-dev-shm-usage",
-                    "--disable-gpu",
-                    "--disable-extensions",
-                    "--disable-background-networking",
-                    "--disable-sync",
-                    "--metrics-recording-only",
-                    "--mute-audio",
-                    "--no-first-run",
-                    "--no-default-browser-check",
-                    "--hide-scrollbars",
-                    "--disk-cache-size=0",
-                    "--disable-application-cache"
-            ));
-            if (chromePath != null && !chromePath.isBlank()) {
-                launch.setExecutablePath(chromePath);
-            }
-
-            browser = Puppeteer.launch(launch);
-            log.info("Launched headless Chrome (jvppeteer)");
-            return browser;
-        }
+    private String cacheKey(String html, String baseUrl, String width, String height, Boolean landscape) {
+        String normalizedHtml = html.strip().replaceAll("[ \\t]*\\r?\\n", "\n");
+        return PdfRenderCache.key(normalizedHtml,
+                baseUrl != null ? baseUrl.strip() : null,
+                width, height, String.valueOf(landscape),
+                viewportWidth + "x" + viewportHeight + "@" + deviceScaleFactor,
+                assets.version());
     }
 
     /**
-     * Clear the variable and close the browser
+     * Launch options of a Chrome process
+     * Utilizes many arguments to prevent caching, in turn preventing unintended passive memory bloat
      */
-    private void safeCloseBrowser() {
-        try {
-            Browser b = browser;
-            browser = null;
-            if (b != null) b.close();
-        } catch (Throwable t) {
-            log.warn("Error closing Chrome: {}", t.toString());
+    private LaunchOptions launchOptions() {
+        LaunchOptions launch = LaunchOptions.builder().build();
+        launch.setHeadless(true);
+        launch.setArgs(Arrays.asList(
+                "--incognito",
+                "--no-sandbox",
+                "--disable-setuid-sandbox",
+                "--disable-dev-shm-usage",
+                "--disable-gpu",
+                "--disable-extensions",
+                "--disable-background-networking",
+                "--disable-sync",
+                "--metrics-recording-only",
+                "--mute-audio",
+                "--no-first-run",
+                "--no-default-browser-check",
+                "--hide-scrollbars",
+                "--disk-cache-size=0",
+                "--disable-application-cache"
+        ));
+        if (chromePath != null && !chromePath.isBlank()) {
+            launch.setExecutablePath(chromePath);
         }
-    }
-
-    /**
-     * Timeout setters
-     */
-    private static void setTimeouts(Page page, int timeoutMs) {
-        try {
-            page.setDefaultNavigationTimeout(timeoutMs);
-            page.setDefaultTimeout(timeoutMs);
-        } catch (Throwable ignored) {}
+        return launch;
     }
 }
@@ -4,13 +4,23 @@ import io.passport.server.model.*;
 import io.passport.server.repository.PersonnelRepository;
 import io.passport.server.repository.StudyOrganizationRepository;
 import io.passport.server.repository.StudyRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 /**
  * Service class for personnel management.
@@ -18,6 +28,8 @@ import java.util.Optional;
 @Service
 public class PersonnelService {
 
+    private static final Logger log = LoggerFactory.getLogger(PersonnelService.class);
+
     /**
      * Personnel repo access for database management.
      */
@@ -30,6 +42,16 @@ public class PersonnelService {
     private final StudyOrganizationRepository studyOrganizationRepository;
     private final StudyRepository studyRepository;
 
+    /**
+     * Bounded executor for Keycloak user provisioning in bulk personnel creation
+     */
+    private final ExecutorService provisioningExecutor;
+
+    /**
+     * Transaction of the batched personnel insert, so a failed batch leaves no rows behind before the retry
+     */
+    private final TransactionTemplate insertTransaction;
+
     /**
      * Lazy service references for limited use in cascade validation
      */
@@ -45,11 +67,23 @@ public class PersonnelService {
     public PersonnelService(PersonnelRepository personnelRepository,
                             KeycloakService keycloakService,
                             StudyOrganizationRepository studyOrganizationRepository,
-                            StudyRepository studyRepository) {
+                            StudyRepository studyRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${personnel.bulk.parallelism:8}") int bulkParallelism) {
         this.personnelRepository = personnelRepository;
         this.keycloakService = keycloakService;
         this.studyOrganizationRepository = studyOrganizationRepository;
         this.studyRepository = studyRepository;
+        this.provisioningExecutor = Executors.newFixedThreadPool(Math.max(1, bulkParallelism));
+        this.insertTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Stop the provisioning workers at exit
+     */
+    @PreDestroy
+    void shutdown() {
+        provisioningExecutor.shutdown();
     }
 
     /**
@@ -323,15 +357,7 @@ public class PersonnelService {
      * @return
      */
     public Optional<Personnel> savePersonnel(PersonnelDTO personnelDTO) {
-        Optional<String> keycloakUserId;
-        if(personnelDTO.getIsStudyOwner()){
-            keycloakUserId = this.keycloakService
-                    .createUserAndReturnId(personnelDTO.getCredentials().username, personnelDTO.getCredentials().password, Role.STUDY_OWNER);
-        }
-        else {
-            keycloakUserId = this.keycloakService
-                    .createUserAndReturnId(personnelDTO.getCredentials().username, personnelDTO.getCredentials().password, null);
-        }
+        Optional<String> keycloakUserId = createKeycloakUser(personnelDTO);
         if(keycloakUserId.isPresent()) {
             Personnel personnel = personnelDTO.getPersonnel();
             personnel.setPersonId(keycloakUserId.get());
@@ -342,6 +368,97 @@ public class PersonnelService {
         }
     }
 
+    /**
+     * Save a list of personnel.
+     * Keycloak users are provisioned concurrently on a bounded executor, then the personnel rows are inserted in
+     * a single batch. Keycloak users whose personnel row could not be inserted are deleted again.
+     * @param personnelDTOs personnel to be saved
+     * @return per-item results in the order of the given list
+     */
+    public List<PersonnelBulkResultDTO> savePersonnelBulk(List<PersonnelDTO> personnelDTOs) {
+        List<CompletableFuture<Optional<String>>> provisions = personnelDTOs.stream()
+                .map(dto -> CompletableFuture.supplyAsync(() -> createKeycloakUser(dto), provisioningExecutor))
+                .collect(Collectors.toList());
+
+        List<PersonnelBulkResultDTO> results = new ArrayList<>(personnelDTOs.size());
+        List<Personnel> provisioned = new ArrayList<>();
+        for (int i = 0; i < personnelDTOs.size(); i++) {
+            PersonnelDTO dto = personnelDTOs.get(i);
+            String username = dto.getCredentials() != null ? dto.getCredentials().username : null;
+
+            Optional<String> keycloakUserId;
+            try {
+                keycloakUserId = provisions.get(i).join();
+            } catch (CompletionException e) {
+                log.error("Keycloak provisioning failed for {}: {}", username, e.getMessage());
+                keycloakUserId = Optional.empty();
+            }
+
+            if (keycloakUserId.isPresent() && dto.getPersonnel() != null) {
+                Personnel personnel = dto.getPersonnel();
+                personnel.setPersonId(keycloakUserId.get());
+                provisioned.add(personnel);
+                results.add(new PersonnelBulkResultDTO(username, personnel, true, null));
+            } else {
+                keycloakUserId.ifPresent(keycloakService::deleteUser);
+                results.add(new PersonnelBulkResultDTO(username, null, false, "Keycloak user could not be created."));
+            }
+        }
+
+        Map<String, String> failedInserts = insertPersonnel(provisioned);
+        for (PersonnelBulkResultDTO result : results) {
+            if (result.getPersonnel() == null) {
+                continue;
+            }
+            String personId = result.getPersonnel().getPersonId();
+            if (failedInserts.containsKey(personId)) {
+                keycloakService.deleteUser(personId);
+                result.setPersonnel(null);
+                result.setCreated(false);
+                result.setError(failedInserts.get(personId));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Inserts the personnel rows with batched statements in one transaction. If the batch fails, it is rolled back and
+     * each row is retried on its own so that only the failing rows are reported.
+     * @param personnelList personnel to be inserted
+     * @return map of personnel IDs to the error message of their failed insert
+     */
+    private Map<String, String> insertPersonnel(List<Personnel> personnelList) {
+        if (personnelList.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            insertTransaction.executeWithoutResult(status -> personnelRepository.insertAll(personnelList));
+            return Map.of();
+        } catch (RuntimeException batchError) {
+            log.warn("Batch personnel insert failed, retrying one by one: {}", batchError.getMessage());
+            Map<String, String> failures = new HashMap<>();
+            for (Personnel personnel : personnelList) {
+                try {
+                    personnelRepository.insertAll(List.of(personnel));
+                } catch (RuntimeException e) {
+                    failures.put(personnel.getPersonId(), e.getMessage());
+                }
+            }
+            return failures;
+        }
+    }
+
+    /**
+     * Creates the Keycloak user of a personnel, with the STUDY_OWNER role if requested.
+     * @param personnelDTO personnel with credentials
+     * @return Keycloak user ID if creation is successful
+     */
+    private Optional<String> createKeycloakUser(PersonnelDTO personnelDTO) {
+        Role role = Boolean.TRUE.equals(personnelDTO.getIsStudyOwner()) ? Role.STUDY_OWNER : null;
+        return this.keycloakService
+                .createUserAndReturnId(personnelDTO.getCredentials().username, personnelDTO.getCredentials().password, role);
+    }
+
     /**
      * Update a personnel
      * @param personnelId ID of the personnel
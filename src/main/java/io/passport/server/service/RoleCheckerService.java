@@ -1,14 +1,20 @@
 package io.passport.server.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import io.passport.server.model.AuthorizationMode;
 import io.passport.server.model.Role;
+import io.passport.server.model.TokenClaim;
 
 /**
  * Service class for role checking and authorization handling
@@ -19,6 +25,24 @@ public class RoleCheckerService {
     @Autowired
     private KeycloakService keycloakService;
 
+    /**
+     * Request scoped memo of study authorization decisions
+     */
+    @Autowired
+    private AuthorizationDecisionMemo authorizationDecisionMemo;
+
+    /**
+     * Source of the roles and study memberships, either the Keycloak Admin API or the access token claims
+     */
+    @Value("${authorization.mode:ADMIN_API}")
+    private AuthorizationMode authorizationMode;
+
+    /**
+     * Token claim carrying the full paths of the user's groups (e.g. /study-<id>/<ROLE>)
+     */
+    @Value("${authorization.token-claims.groups-claim:study_groups}")
+    private String groupsClaim;
+
     private final List<Role> viewOnlyRoles = List.of(Role.STUDY_OWNER, Role.DATA_SCIENTIST, Role.DATA_ENGINEER,
             Role.SURVEY_MANAGER, Role.QUALITY_ASSURANCE_SPECIALIST, Role.ML_ENGINEER);
 
@@ -33,7 +57,10 @@ public class RoleCheckerService {
             return false;
         }
 
-        Set<String> userRoles = keycloakService.getUserRoles(principal.getSubject());
+        Set<String> userRoles = getRealmRolesFromClaims(principal);
+        if (userRoles == null) {
+            userRoles = keycloakService.getUserRoles(principal.getSubject());
+        }
 
         for (Role role : rolesToCheck) {
             if (userRoles.contains(role.toString())) {
@@ -46,20 +73,80 @@ public class RoleCheckerService {
 
     /**
      * Checks if a user is authorized to perform actions for a specific study by verifying their membership
-     * in the relevant study groups.
+     * in the relevant study groups. Within an HTTP request, each distinct question is answered only once.
      * @param studyId ID of the study
      * @param principal KeycloakPrincipal object containing the access token
      * @param allowedRoles List of roles allowed to access the study
      * @return true if the user is a member of one of the allowed roles for the given study, false otherwise
      */
     public boolean isUserAuthorizedForStudy(String studyId, Jwt principal, List<Role> allowedRoles) {
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return decideStudyAuthorization(studyId, principal, allowedRoles);
+        }
+        return authorizationDecisionMemo.computeIfAbsent(studyId, principal.getSubject(), allowedRoles,
+                () -> decideStudyAuthorization(studyId, principal, allowedRoles));
+    }
+
+    /**
+     * Decides the study authorization of a user from the token claims or Keycloak.
+     * @param studyId ID of the study
+     * @param principal KeycloakPrincipal object containing the access token
+     * @param allowedRoles List of roles allowed to access the study
+     * @return true if the user is a member of one of the allowed roles for the given study, false otherwise
+     */
+    private boolean decideStudyAuthorization(String studyId, Jwt principal, List<Role> allowedRoles) {
         String personnelId = principal.getSubject();
         List<String> allowedRoleNames = allowedRoles.stream().map(Role::toString).collect(Collectors.toList());
 
+        Set<String> studyRoles = getStudyRolesFromClaims(studyId, principal);
+        if (studyRoles != null) {
+            return allowedRoleNames.stream().anyMatch(studyRoles::contains);
+        }
+
         // Check if the user is a member of any of the allowed role groups within the study
         return keycloakService.isUserInStudyGroupWithRoles(studyId, personnelId, allowedRoleNames);
     }
 
+    /**
+     * Reads the realm roles of the user from the realm_access claim of the access token.
+     * @param principal Jwt object containing the access token
+     * @return Set of realm role names, or null if token claims are not used or the token lacks the claim
+     */
+    private Set<String> getRealmRolesFromClaims(Jwt principal) {
+        if (authorizationMode != AuthorizationMode.TOKEN_CLAIMS
+                || !principal.hasClaim(TokenClaim.REALM_ACCESS.getValue())) {
+            return null;
+        }
+        Map<String, Object> realmAccess = principal.getClaimAsMap(TokenClaim.REALM_ACCESS.getValue());
+        if (realmAccess == null || !(realmAccess.get(TokenClaim.ROLES.getValue()) instanceof Collection<?> roles)) {
+            return null;
+        }
+        return roles.stream().map(String::valueOf).collect(Collectors.toSet());
+    }
+
+    /**
+     * Reads the roles the user holds in a study from the group membership claim of the access token.
+     * @param studyId ID of the study
+     * @param principal Jwt object containing the access token
+     * @return Set of role names in the study, or null if token claims are not used or the token lacks the claim
+     */
+    private Set<String> getStudyRolesFromClaims(String studyId, Jwt principal) {
+        if (authorizationMode != AuthorizationMode.TOKEN_CLAIMS || !principal.hasClaim(groupsClaim)) {
+            return null;
+        }
+        List<String> groupPaths = principal.getClaimAsStringList(groupsClaim);
+        if (groupPaths == null) {
+            return null;
+        }
+        // Group paths are issued either as /study-<id>/<ROLE> or study-<id>/<ROLE>
+        String studyGroupPrefix = "study-" + studyId + "/";
+        return groupPaths.stream()
+                .map(path -> path.startsWith("/") ? path.substring(1) : path)
+                .filter(path -> path.startsWith(studyGroupPrefix))
+                .map(path -> path.substring(studyGroupPrefix.length()))
+                .collect(Collectors.toSet());
+    }
+
     /**
      * Checks if a user is authorized to view the study
      * @param studyId ID of the study
@@ -0,0 +1,71 @@
+package io.passport.server.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of the study roles a personnel holds, keyed by (studyId, personnelId).
+ * Avoids repeating the Keycloak group membership lookups on every authorization check.
+ */
+@Component
+public class StudyMembershipCache {
+
+    /**
+     * Cache key of a personnel membership in a study.
+     * @param studyId ID of the study
+     * @param personnelId ID of the personnel (user)
+     */
+    private record MembershipKey(String studyId, String personnelId) {}
+
+    private final Cache<MembershipKey, Set<String>> cache;
+
+    @Autowired
+    public StudyMembershipCache(MeterRegistry meterRegistry,
+                                @Value("${authorization.membership-cache.ttl-seconds:60}") long ttlSeconds,
+                                @Value("${authorization.membership-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "studyMembership");
+    }
+
+    /**
+     * Returns the cached study roles of the personnel, loading them on a miss.
+     * Failed loads are not cached.
+     * @param studyId ID of the study
+     * @param personnelId ID of the personnel (user)
+     * @param loader Supplier which resolves the roles from Keycloak
+     * @return Set of role names the personnel holds in the study
+     */
+    public Set<String> getStudyRoles(String studyId, String personnelId, Supplier<Set<String>> loader) {
+        return cache.get(new MembershipKey(studyId, personnelId), key -> loader.get());
+    }
+
+    /**
+     * Drops the cached membership of a single personnel in a study.
+     * @param studyId ID of the study
+     * @param personnelId ID of the personnel (user)
+     */
+    public void invalidate(String studyId, String personnelId) {
+        cache.invalidate(new MembershipKey(studyId, personnelId));
+    }
+
+    /**
+     * Drops every cached membership of a study.
+     * @param studyId ID of the study
+     */
+    public void invalidateStudy(String studyId) {
+        cache.asMap().keySet().removeIf(key -> key.studyId().equals(studyId));
+    }
+}
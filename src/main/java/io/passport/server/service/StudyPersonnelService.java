@@ -3,10 +3,13 @@ package io.passport.server.service;
 import io.passport.server.model.*;
 import io.passport.server.repository.StudyPersonnelRepository;
 import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -17,6 +20,8 @@ import java.util.stream.Collectors;
 @Service
 public class StudyPersonnelService {
 
+    private static final Logger log = LoggerFactory.getLogger(StudyPersonnelService.class);
+
     /**
      * StudyPersonnel repo access for database management.
      */
@@ -146,18 +151,14 @@ public class StudyPersonnelService {
 
     /**
      * Create StudyPersonnel entries with role assignments and Keycloak memberships.
+     * The entries are saved first, then the Keycloak memberships are synchronized outside any DB transaction.
+     * If the synchronization fails as a whole, every personnel of the request is reported as failed.
      * @param studyId ID of the study
      * @param organizationId ID of the organization
      * @param personnelRoleMap Map of Personnel and their corresponding roles
+     * @return Map of personnel IDs to the error message of their failed Keycloak synchronization
      */
-    @Transactional
-    public void createStudyPersonnelEntries(String studyId, String organizationId, Map<String, List<String>> personnelRoleMap) {
-        // Fetch existing personnel for the organization and clear their StudyPersonnel entries
-        List<String> personnelIdList = this.personnelService.findPersonnelByOrganizationId(organizationId).stream()
-                .map(Personnel::getPersonId).collect(Collectors.toList());
-
-        // Clear existing personnel entries and remove their roles from Keycloak
-
+    public Map<String, String> createStudyPersonnelEntries(String studyId, String organizationId, Map<String, List<String>> personnelRoleMap) {
         // Process each Personnel and their roles
         List<StudyPersonnel> studyPersonnelEntries = personnelRoleMap.entrySet().stream().map(entry -> {
             String personnel = entry.getKey();
@@ -171,13 +172,21 @@ public class StudyPersonnelService {
             studyPersonnel.setId(studyPersonnelId);
             studyPersonnel.setRolesFromList(roles);
 
-            keycloakService.assignPersonnelToStudyGroups(studyId, personnel, roles);
-
             return studyPersonnel;
         }).collect(Collectors.toList());
 
         // Save all the new StudyPersonnel entries
         studyPersonnelRepository.saveAll(studyPersonnelEntries);
+
+        // Apply only the membership changes on Keycloak
+        try {
+            return keycloakService.syncStudyGroupMemberships(studyId, personnelRoleMap);
+        } catch (RuntimeException e) {
+            log.error("Study group sync failed for study {}: {}", studyId, e.getMessage());
+            Map<String, String> failures = new LinkedHashMap<>();
+            personnelRoleMap.keySet().forEach(personnelId -> failures.put(personnelId, e.getMessage()));
+            return failures;
+        }
     }
 
     /**
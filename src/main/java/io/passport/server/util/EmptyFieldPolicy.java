@@ -0,0 +1,188 @@
+package io.passport.server.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Empty field policy of passport details, applied while the details are serialized.
+ * Blank or missing String values are written as "N/A", or dropped when empty fields are excluded.
+ * Jackson resolves the String properties of every type once and caches the resulting serializers,
+ * so the policy costs no reflection per passport and never modifies the serialized entities.
+ */
+public final class EmptyFieldPolicy {
+
+    /**
+     * Placeholder written for blank or missing String values.
+     */
+    public static final String NOT_AVAILABLE = "N/A";
+
+    private static final ObjectMapper keepEmptyFieldsMapper = createMapper(false);
+    private static final ObjectMapper excludeEmptyFieldsMapper = createMapper(true);
+
+    private EmptyFieldPolicy() {
+    }
+
+    /**
+     * Object mapper applying the empty field policy.
+     * @param excludeEmptyStringFields Whether blank String values are dropped instead of written as "N/A"
+     * @return Shared object mapper instance
+     */
+    public static ObjectMapper mapper(boolean excludeEmptyStringFields) {
+        return excludeEmptyStringFields ? excludeEmptyFieldsMapper : keepEmptyFieldsMapper;
+    }
+
+    /**
+     * Writes a top level entry of the passport details, following the same rules as nested map entries.
+     * @param gen Generator created by the mapper of the policy, positioned inside the details object
+     * @param name Key of the entry
+     * @param value Value of the entry, possibly holding entities
+     * @param excludeEmptyStringFields Whether blank String values are dropped instead of written as "N/A"
+     */
+    public static void writeEntry(JsonGenerator gen, String name, Object value, boolean excludeEmptyStringFields) throws IOException {
+        if (isBlankString(value) && excludeEmptyStringFields) {
+            return;
+        }
+        gen.writeFieldName(name);
+        if (value == null) {
+            if (excludeEmptyStringFields) gen.writeNull();
+            else gen.writeString(NOT_AVAILABLE);
+        } else if (isBlankString(value)) {
+            gen.writeString(NOT_AVAILABLE);
+        } else {
+            mapper(excludeEmptyStringFields).writeValue(gen, value);
+        }
+    }
+
+    private static ObjectMapper createMapper(boolean excludeEmptyStringFields) {
+        SimpleModule module = new SimpleModule("EmptyFieldPolicy");
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc,
+                                                             List<BeanPropertyWriter> beanProperties) {
+                beanProperties.replaceAll(writer -> writer.getType().hasRawClass(String.class)
+                        ? new StringPropertyWriter(writer, excludeEmptyStringFields)
+                        : writer);
+                return beanProperties;
+            }
+        });
+        module.addSerializer(new MapSerializer(excludeEmptyStringFields));
+        module.addSerializer(new CollectionSerializer(excludeEmptyStringFields));
+
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .addModule(module)
+                .build();
+    }
+
+    private static boolean isBlankString(Object value) {
+        return value instanceof String s && s.isBlank();
+    }
+
+    /**
+     * String property of a bean. Missing or blank values become null when excluded, "N/A" otherwise.
+     */
+    private static final class StringPropertyWriter extends BeanPropertyWriter {
+
+        private final boolean excludeEmptyStringFields;
+
+        StringPropertyWriter(BeanPropertyWriter base, boolean excludeEmptyStringFields) {
+            super(base);
+            this.excludeEmptyStringFields = excludeEmptyStringFields;
+        }
+
+        @Override
+        public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            Object value = get(bean);
+            if (value != null && !isBlankString(value)) {
+                super.serializeAsField(bean, gen, prov);
+                return;
+            }
+            if (excludeEmptyStringFields) {
+                if (!willSuppressNulls()) {
+                    gen.writeFieldName(_name);
+                    gen.writeNull();
+                }
+                return;
+            }
+            gen.writeFieldName(_name);
+            gen.writeString(NOT_AVAILABLE);
+        }
+    }
+
+    /**
+     * Map entries. Null values become "N/A" unless excluded, blank values are removed when excluded.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final class MapSerializer extends StdSerializer<Map> {
+
+        private final boolean excludeEmptyStringFields;
+
+        MapSerializer(boolean excludeEmptyStringFields) {
+            super(Map.class);
+            this.excludeEmptyStringFields = excludeEmptyStringFields;
+        }
+
+        @Override
+        public void serialize(Map map, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(map);
+            for (Object e : map.entrySet()) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) e;
+                Object value = entry.getValue();
+                if (isBlankString(value) && excludeEmptyStringFields) {
+                    continue;
+                }
+                gen.writeFieldName(String.valueOf(entry.getKey()));
+                if (value == null) {
+                    if (excludeEmptyStringFields) gen.writeNull();
+                    else gen.writeString(NOT_AVAILABLE);
+                } else if (isBlankString(value)) {
+                    gen.writeString(NOT_AVAILABLE);
+                } else {
+                    provider.defaultSerializeValue(value, gen);
+                }
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Collection items. Null or blank items become "N/A", or are removed when excluded.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final class CollectionSerializer extends StdSerializer<Collection> {
+
+        private final boolean excludeEmptyStringFields;
+
+        CollectionSerializer(boolean excludeEmptyStringFields) {
+            super(Collection.class);
+            this.excludeEmptyStringFields = excludeEmptyStringFields;
+        }
+
+        @Override
+        public void serialize(Collection collection, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(collection);
+            for (Object item : collection) {
+                if (item == null || isBlankString(item)) {
+                    if (!excludeEmptyStringFields) gen.writeString(NOT_AVAILABLE);
+                    continue;
+                }
+                provider.defaultSerializeValue(item, gen);
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package io.passport.server.controller;
+
+import io.passport.server.model.Passport;
+import io.passport.server.model.PassportBuildJob;
+import io.passport.server.model.PassportDetails;
+import io.passport.server.model.PassportWithDetailSelection;
+import io.passport.server.service.PassportBuildJobService;
+import io.passport.server.service.PassportService;
+import io.passport.server.service.PdfRenderQueue;
+import io.passport.server.service.RoleCheckerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PassportControllerTest {
+
+    private PassportService passportService;
+    private RoleCheckerService roleCheckerService;
+    private PassportBuildJobService passportBuildJobService;
+    private PassportController controller;
+    private Jwt principal;
+
+    @BeforeEach
+    void setUp() {
+        passportService = mock(PassportService.class);
+        roleCheckerService = mock(RoleCheckerService.class);
+        passportBuildJobService = mock(PassportBuildJobService.class);
+        controller = new PassportController(passportService, roleCheckerService, mock(PdfRenderQueue.class),
+                passportBuildJobService);
+        principal = mock(Jwt.class);
+        when(roleCheckerService.isUserAuthorizedForStudy(eq("study-a"), any(), anyList())).thenReturn(true);
+    }
+
+    @Test
+    void asyncCreateRejectsPassportOfAnotherStudy() {
+        ResponseEntity<?> response = controller.createPassport(selection("study-b"), "study-a", true, principal);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(passportBuildJobService);
+    }
+
+    @Test
+    void syncCreateRejectsPassportOfAnotherStudy() {
+        ResponseEntity<?> response = controller.createPassport(selection("study-b"), "study-a", false, principal);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(passportService);
+    }
+
+    @Test
+    void asyncCreateQueuesJobInAuthorizedStudy() {
+        PassportBuildJob job = new PassportBuildJob();
+        job.setJobId("job-1");
+        job.setStudyId("study-a");
+        when(passportBuildJobService.submit(any())).thenReturn(job);
+
+        PassportWithDetailSelection selection = selection(null);
+        ResponseEntity<?> response = controller.createPassport(selection, "study-a", true, principal);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(selection.getPassport().getStudyId()).isEqualTo("study-a");
+        assertThat(response.getHeaders().getLocation()).hasToString("/passport/jobs/job-1?studyId=study-a");
+        verify(passportBuildJobService).submit(selection);
+    }
+
+    @Test
+    void sectionOfMissingPassportIsNotFoundEvenWithMatchingETag() {
+        String eTag = sectionETag();
+        when(passportService.existsPassportInStudy("passport-1", "study-a")).thenReturn(false);
+        ServletWebRequest request = conditionalRequest(eTag);
+
+        ResponseEntity<byte[]> response = controller.getPassportSection("passport-1", "evaluationMeasures", "study-a",
+                principal, request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        verify(passportService, times(1)).findPassportSection(any(), any(), any());
+    }
+
+    @Test
+    void sectionOfExistingPassportIsNotModifiedWithMatchingETag() {
+        String eTag = sectionETag();
+        when(passportService.existsPassportInStudy("passport-1", "study-a")).thenReturn(true);
+        ServletWebRequest request = conditionalRequest(eTag);
+
+        ResponseEntity<byte[]> response = controller.getPassportSection("passport-1", "evaluationMeasures", "study-a",
+                principal, request);
+
+        assertThat(response).isNull();
+        assertThat(request.getResponse().getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+    }
+
+    /**
+     * Entity tag of the section as returned by a previous response
+     */
+    private String sectionETag() {
+        when(passportService.existsPassportInStudy("passport-1", "study-a")).thenReturn(true);
+        when(passportService.findPassportSection("passport-1", "study-a", "evaluationMeasures"))
+                .thenReturn(Optional.of("[]".getBytes()));
+        ResponseEntity<byte[]> response = controller.getPassportSection("passport-1", "evaluationMeasures", "study-a",
+                principal, new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse()));
+        return response.getHeaders().getETag();
+    }
+
+    private static ServletWebRequest conditionalRequest(String eTag) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/passport/passport-1/sections/evaluationMeasures");
+        request.addHeader("If-None-Match", eTag);
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+
+    private static PassportWithDetailSelection selection(String studyId) {
+        Passport passport = new Passport();
+        passport.setStudyId(studyId);
+        passport.setDeploymentId("deployment-1");
+        return new PassportWithDetailSelection(passport, new PassportDetails());
+    }
+}
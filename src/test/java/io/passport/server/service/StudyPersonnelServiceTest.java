@@ -0,0 +1,47 @@
+package io.passport.server.service;
+
+import io.passport.server.repository.StudyPersonnelRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class StudyPersonnelServiceTest {
+
+    private final StudyPersonnelRepository studyPersonnelRepository = mock(StudyPersonnelRepository.class);
+    private final KeycloakService keycloakService = mock(KeycloakService.class);
+    private final StudyPersonnelService service = new StudyPersonnelService(studyPersonnelRepository,
+            mock(PersonnelService.class), keycloakService, mock(RoleCheckerService.class));
+
+    @Test
+    void failedSyncReportsEveryPersonnelAsFailed() {
+        Map<String, List<String>> personnelRoleMap = new LinkedHashMap<>();
+        personnelRoleMap.put("person-1", List.of("DATA_ENGINEER"));
+        personnelRoleMap.put("person-2", List.of("ML_ENGINEER"));
+        when(keycloakService.syncStudyGroupMemberships("study-a", personnelRoleMap))
+                .thenThrow(new RuntimeException("Study group 'study-study-a' not found."));
+
+        Map<String, String> failures = service.createStudyPersonnelEntries("study-a", "organization-1", personnelRoleMap);
+
+        verify(studyPersonnelRepository).saveAll(anyList());
+        assertThat(failures).containsOnlyKeys("person-1", "person-2")
+                .containsValue("Study group 'study-study-a' not found.");
+    }
+
+    @Test
+    void partialSyncFailuresArePassedThrough() {
+        Map<String, List<String>> personnelRoleMap = Map.of("person-1", List.of("DATA_ENGINEER"),
+                "person-2", List.of("ML_ENGINEER"));
+        when(keycloakService.syncStudyGroupMemberships("study-a", personnelRoleMap))
+                .thenReturn(Map.of("person-2", "Subgroup for role ML_ENGINEER not found."));
+
+        Map<String, String> failures = service.createStudyPersonnelEntries("study-a", "organization-1", personnelRoleMap);
+
+        assertThat(failures).containsOnlyKeys("person-2");
+    }
+}
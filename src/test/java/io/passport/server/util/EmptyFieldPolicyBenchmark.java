@@ -0,0 +1,50 @@
+package io.passport.server.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of passport details with the empty field policy, compared to the legacy walk followed by
+ * serialization. Both build their details per invocation, since the legacy walk modifies them in place;
+ * the build alone is measured by {@link #buildOnly()}.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=io.passport.server.util.EmptyFieldPolicyBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmptyFieldPolicyBenchmark {
+
+    @Param({"10", "500"})
+    public int features;
+
+    @Param({"false", "true"})
+    public boolean excludeEmptyFields;
+
+    @Benchmark
+    public Map<String, Object> buildOnly() {
+        return SamplePassportDetails.create(features);
+    }
+
+    @Benchmark
+    public String policy() throws IOException {
+        return EmptyFieldPolicyTest.writeWithPolicy(SamplePassportDetails.create(features), excludeEmptyFields);
+    }
+
+    @Benchmark
+    public String legacyWalk() throws IOException {
+        return EmptyFieldPolicyTest.writeWithLegacyWalk(SamplePassportDetails.create(features), excludeEmptyFields);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EmptyFieldPolicyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
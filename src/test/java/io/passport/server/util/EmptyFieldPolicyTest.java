@@ -0,0 +1,65 @@
+package io.passport.server.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmptyFieldPolicyTest {
+
+    /**
+     * Mapper the details were stored with after the legacy walk
+     */
+    private static final ObjectMapper legacyMapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void writesTheSameDetailsAsTheLegacyWalk(boolean excludeEmptyFields) throws IOException {
+        assertThat(readTree(writeWithPolicy(SamplePassportDetails.create(12), excludeEmptyFields)))
+                .isEqualTo(readTree(writeWithLegacyWalk(SamplePassportDetails.create(12), excludeEmptyFields)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void leavesTheDetailsUnchanged(boolean excludeEmptyFields) throws IOException {
+        Map<String, Object> details = SamplePassportDetails.create(4);
+        String before = legacyMapper.writeValueAsString(details);
+
+        writeWithPolicy(details, excludeEmptyFields);
+
+        assertThat(legacyMapper.writeValueAsString(details)).isEqualTo(before);
+    }
+
+    /**
+     * Writes the details entry by entry, as the passport service streams them
+     */
+    static String writeWithPolicy(Map<String, Object> details, boolean excludeEmptyFields) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator gen = EmptyFieldPolicy.mapper(excludeEmptyFields).createGenerator(out)) {
+            gen.writeStartObject();
+            for (Map.Entry<String, Object> entry : details.entrySet()) {
+                EmptyFieldPolicy.writeEntry(gen, entry.getKey(), entry.getValue(), excludeEmptyFields);
+            }
+            gen.writeEndObject();
+        }
+        return out.toString();
+    }
+
+    static String writeWithLegacyWalk(Map<String, Object> details, boolean excludeEmptyFields) throws IOException {
+        LegacyEmptyFieldCleaner.cleanEmptyStringFieldsDeep(details, excludeEmptyFields);
+        return legacyMapper.writeValueAsString(details);
+    }
+
+    private static JsonNode readTree(String json) throws IOException {
+        return legacyMapper.readTree(json);
+    }
+}
@@ -0,0 +1,107 @@
+package io.passport.server.util;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The recursive empty field walk which modified the passport details in place before they were serialized.
+ * Kept as the reference behavior of {@link EmptyFieldPolicy}.
+ */
+final class LegacyEmptyFieldCleaner {
+
+    private LegacyEmptyFieldCleaner() {
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static void cleanEmptyStringFieldsDeep(Object node, boolean excludeEmptyStringFields) {
+        if (node == null) return;
+
+        // Case 1: Map
+        if (node instanceof Map<?, ?>) {
+            Map<String, Object> map = (Map<String, Object>) node;
+            Iterator<Map.Entry<String, Object>> it = map.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Object> entry = it.next();
+                Object value = entry.getValue();
+
+                if (value == null) {
+                    if (!excludeEmptyStringFields) entry.setValue("N/A");
+                    continue;
+                }
+
+                if (value instanceof Map || value instanceof Collection<?>) {
+                    cleanEmptyStringFieldsDeep(value, excludeEmptyStringFields);
+                } else if (value instanceof String) {
+                    String s = (String) value;
+                    if (s.isBlank()) {
+                        if (excludeEmptyStringFields) it.remove();
+                        else entry.setValue("N/A");
+                    }
+                } else {
+                    cleanEmptyStringFieldsDeep(value, excludeEmptyStringFields);
+                }
+            }
+        }
+
+        // Case 2: Collection (List, Set, etc.)
+        else if (node instanceof Collection<?>) {
+            Collection coll = (Collection) node;
+            List<Object> cleaned = new ArrayList<>(coll.size());
+            for (Object item : coll) {
+                if (item == null) {
+                    if (!excludeEmptyStringFields) cleaned.add("N/A");
+                    continue;
+                }
+
+                if (item instanceof String) {
+                    String s = (String) item;
+                    if (s.isBlank()) {
+                        if (!excludeEmptyStringFields) cleaned.add("N/A");
+                    } else cleaned.add(s);
+                } else {
+                    cleanEmptyStringFieldsDeep(item, excludeEmptyStringFields);
+                    cleaned.add(item);
+                }
+            }
+            coll.clear();
+            coll.addAll(cleaned);
+        }
+
+        // Case 3: POJO (e.g. Feature, Dataset, etc.)
+        else {
+            Class<?> clazz = node.getClass();
+            if (clazz.isPrimitive() || clazz.getName().startsWith("java.") || clazz.isEnum()) {
+                return;
+            }
+
+            for (Field field : clazz.getDeclaredFields()) {
+                field.setAccessible(true);
+                try {
+                    Object value = field.get(node);
+                    if (value == null) {
+                        if (field.getType() == String.class && !excludeEmptyStringFields) {
+                            field.set(node, "N/A");
+                        }
+                        continue;
+                    }
+
+                    if (value instanceof String) {
+                        String s = (String) value;
+                        if (s.isBlank()) {
+                            if (excludeEmptyStringFields) field.set(node, null);
+                            else field.set(node, "N/A");
+                        }
+                    } else {
+                        cleanEmptyStringFieldsDeep(value, excludeEmptyStringFields);
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException("Error while cleaning empty string fields: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.passport.server.util;
+
+import io.passport.server.model.EvaluationMeasure;
+import io.passport.server.model.Feature;
+import io.passport.server.model.FeatureSet;
+import io.passport.server.model.FeatureSetWithFeaturesDTO;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Passport details with the shapes the empty field policy has to handle: entities with blank and missing
+ * String fields, nested maps and lists, empty collections and null sections.
+ * Every call builds a new, mutable instance, since the legacy walk modifies the details in place.
+ */
+final class SamplePassportDetails {
+
+    private static final Instant CREATED_AT = Instant.parse("2025-01-15T10:00:00Z");
+
+    private SamplePassportDetails() {
+    }
+
+    /**
+     * @param features Count of features of the feature set, to scale the details
+     */
+    static Map<String, Object> create(int features) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("modelDeploymentDetails", map(
+                "deploymentId", "deployment-1",
+                "tags", "  ",
+                "identifiedFailures", null,
+                "isActive", true,
+                "createdAt", CREATED_AT));
+        details.put("environmentDetails", null);
+        details.put("modelDetails", map(
+                "name", "Risk model",
+                "description", "",
+                "owner", map("name", "", "email", null, "roles", list("STUDY_OWNER", "", null))));
+        details.put("evaluationMeasures", list(
+                measure("measure-1", "AUC", "0.91", ""),
+                measure("measure-2", "F1", null, "harmonic mean")));
+        details.put("datasetsWithLearningDatasets", new ArrayList<>());
+        details.put("featureSets", list(featureSet(features)));
+        details.put("modelFigures", list(map(), list(), list(" ", "figure.png")));
+        details.put("studyName", "");
+        details.put("sectionCount", 8);
+        return details;
+    }
+
+    private static FeatureSetWithFeaturesDTO featureSet(int features) {
+        FeatureSet featureSet = new FeatureSet();
+        featureSet.setFeaturesetId("featureset-1");
+        featureSet.setTitle("Clinical features");
+        featureSet.setFeaturesetURL(" ");
+        featureSet.setCreatedAt(CREATED_AT);
+
+        List<Feature> featureList = new ArrayList<>();
+        for (int i = 0; i < features; i++) {
+            Feature feature = new Feature();
+            feature.setFeatureId("feature-" + i);
+            feature.setFeaturesetId("featureset-1");
+            feature.setTitle(i % 3 == 0 ? "" : "Feature " + i);
+            feature.setDescription(i % 2 == 0 ? null : "Description " + i);
+            feature.setDataType("numeric");
+            feature.setUnits(i % 4 == 0 ? "   " : "mg");
+            feature.setIsOutcome(i == 0);
+            feature.setCreatedAt(CREATED_AT);
+            featureList.add(feature);
+        }
+        return new FeatureSetWithFeaturesDTO(featureSet, featureList);
+    }
+
+    private static EvaluationMeasure measure(String id, String name, String value, String description) {
+        EvaluationMeasure measure = new EvaluationMeasure();
+        measure.setMeasureId(id);
+        measure.setModelId("model-1");
+        measure.setName(name);
+        measure.setValue(value);
+        measure.setDataType("float");
+        measure.setDescription(description);
+        return measure;
+    }
+
+    private static Map<String, Object> map(Object... keysAndValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+
+    private static List<Object> list(Object... items) {
+        return new ArrayList<>(Arrays.asList(items));
+    }
+}